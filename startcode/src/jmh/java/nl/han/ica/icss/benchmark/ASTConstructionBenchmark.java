@@ -0,0 +1,43 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.ICSSCompiler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the whole parse stage, lexing included, once through a parse tree walked by the
+ * ASTListener and once with the ASTBuilder that needs no parse tree. Run with -prof gc
+ * to compare allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ASTConstructionBenchmark {
+
+    @Param({"level0.icss", "level1.icss", "level2.icss", "level3.icss", "10000", "100000", "1000000"})
+    public String input;
+
+    @Param({"PARSE_TREE", "DIRECT"})
+    public ICSSCompiler.ASTConstruction construction;
+
+    private String source;
+    private ICSSCompiler compiler;
+    private ICSSCompiler.Options options;
+
+    @Setup
+    public void setup() {
+        source = BenchmarkInputs.load(input);
+        compiler = new ICSSCompiler();
+        options = ICSSCompiler.Options.DEFAULT.withASTConstruction(construction);
+    }
+
+    @Benchmark
+    public CompilationResult parse() {
+        return compiler.parse(source, options);
+    }
+}
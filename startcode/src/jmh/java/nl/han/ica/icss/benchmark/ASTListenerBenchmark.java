@@ -0,0 +1,38 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.parser.ASTListener;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Walks a prepared parse tree with the ASTListener to build the AST.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ASTListenerBenchmark {
+
+    @Param({"level0.icss", "level1.icss", "level2.icss", "level3.icss", "10000", "100000", "1000000"})
+    public String input;
+
+    private ParseTree parseTree;
+
+    @Setup
+    public void setup() {
+        parseTree = BenchmarkInputs.parse(BenchmarkInputs.load(input));
+    }
+
+    @Benchmark
+    public AST buildAST() {
+        ASTListener listener = new ASTListener();
+        new ParseTreeWalker().walk(listener, parseTree);
+        return listener.getAST();
+    }
+}
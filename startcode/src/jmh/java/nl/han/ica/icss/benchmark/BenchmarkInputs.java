@@ -0,0 +1,68 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.parser.ASTListener;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.synthetic.StylesheetGenerator;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Loads the benchmark inputs and prepares them up to the stage that is being measured.
+ * An input is either the name of one of the bundled levelN.icss resources or the number
+ * of declarations of a stylesheet made by the {@link StylesheetGenerator}.
+ */
+final class BenchmarkInputs {
+
+    private BenchmarkInputs() {
+    }
+
+    static String load(String input) {
+        if (input.endsWith(".icss"))
+            return loadResource(input);
+        StylesheetGenerator.Settings settings = StylesheetGenerator.Settings.forDeclarations(Integer.parseInt(input));
+        return new StylesheetGenerator(settings).generate();
+    }
+
+    static List<Token> lex(String source) {
+        ICSSLexer lexer = new ICSSLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        tokens.fill();
+        return tokens.getTokens();
+    }
+
+    static ParseTree parse(String source) {
+        ICSSLexer lexer = new ICSSLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        ICSSParser parser = new ICSSParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        return parser.stylesheet();
+    }
+
+    static AST buildAST(ParseTree parseTree) {
+        ASTListener listener = new ASTListener();
+        new ParseTreeWalker().walk(listener, parseTree);
+        return listener.getAST();
+    }
+
+    private static String loadResource(String resource) {
+        try (InputStream inputStream = BenchmarkInputs.class.getClassLoader().getResourceAsStream(resource)) {
+            if (inputStream == null)
+                throw new IllegalArgumentException("No such resource: " + resource);
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
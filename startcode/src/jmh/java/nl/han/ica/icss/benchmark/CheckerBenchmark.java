@@ -0,0 +1,37 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks a prepared AST. The inputs are valid, so no node gets an error. Every check binds
+ * the variables again, which writes the same slots into the tree each time, so the same
+ * tree can be checked again in every invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class CheckerBenchmark {
+
+    @Param({"level0.icss", "level1.icss", "level2.icss", "level3.icss", "10000", "100000", "1000000"})
+    public String input;
+
+    private AST ast;
+
+    @Setup
+    public void setup() {
+        ast = BenchmarkInputs.buildAST(BenchmarkInputs.parse(BenchmarkInputs.load(input)));
+    }
+
+    @Benchmark
+    public AST check() {
+        new Checker().check(ast);
+        return ast;
+    }
+}
@@ -0,0 +1,44 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the Evaluator. The Evaluator rewrites the AST in place, so every invocation
+ * gets a fresh AST built from a cached parse tree; building it is not measured.
+ * On the tiny level files the per-invocation setup makes the numbers noisy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class EvaluatorBenchmark {
+
+    @Param({"level0.icss", "level1.icss", "level2.icss", "level3.icss", "10000", "100000", "1000000"})
+    public String input;
+
+    private ParseTree parseTree;
+    private AST ast;
+
+    @Setup(Level.Trial)
+    public void parse() {
+        parseTree = BenchmarkInputs.parse(BenchmarkInputs.load(input));
+    }
+
+    @Setup(Level.Invocation)
+    public void buildAST() {
+        ast = BenchmarkInputs.buildAST(parseTree);
+    }
+
+    @Benchmark
+    public AST evaluate() {
+        new Evaluator().apply(ast);
+        return ast;
+    }
+}
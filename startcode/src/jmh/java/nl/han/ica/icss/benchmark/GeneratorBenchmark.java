@@ -0,0 +1,44 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.compact.CompactAST;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates CSS from a prepared, already transformed AST, and from the same AST in compact form.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class GeneratorBenchmark {
+
+    @Param({"level0.icss", "level1.icss", "level2.icss", "level3.icss", "10000", "100000", "1000000"})
+    public String input;
+
+    private AST ast;
+    private CompactAST compact;
+
+    @Setup
+    public void setup() {
+        ast = BenchmarkInputs.buildAST(BenchmarkInputs.parse(BenchmarkInputs.load(input)));
+        new Evaluator().apply(ast);
+        compact = CompactAST.from(ast);
+    }
+
+    @Benchmark
+    public String generate() {
+        return new Generator().generate(ast);
+    }
+
+    @Benchmark
+    public String generateCompact() {
+        return new Generator().generate(compact);
+    }
+}
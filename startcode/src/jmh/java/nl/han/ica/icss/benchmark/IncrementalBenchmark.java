@@ -0,0 +1,47 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.IncrementalCompiler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recompiles a document after a one character edit, alternating between two versions that
+ * differ in a single digit. The edit is either in a stylerule halfway the document or in
+ * the first global variable, which invalidates every stylerule that uses it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class IncrementalBenchmark {
+
+    @Param({"level3.icss", "10000", "100000"})
+    public String input;
+
+    @Param({"RULE", "GLOBAL"})
+    public String edit;
+
+    private String[] versions;
+    private IncrementalCompiler compiler;
+    private int next;
+
+    @Setup
+    public void setup() {
+        String source = BenchmarkInputs.load(input);
+        int digit = edit.equals("GLOBAL") ? source.indexOf("px") - 1 : source.indexOf("px", source.length() / 2) - 1;
+        char other = source.charAt(digit) == '1' ? '2' : '1';
+        versions = new String[]{source, source.substring(0, digit) + other + source.substring(digit + 1)};
+        compiler = new IncrementalCompiler();
+        compiler.update(source);
+    }
+
+    @Benchmark
+    public CompilationResult update() {
+        next = 1 - next;
+        return compiler.update(versions[next]);
+    }
+}
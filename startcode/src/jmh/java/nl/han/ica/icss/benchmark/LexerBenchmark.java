@@ -0,0 +1,80 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.parser.ByteBufferCharStream;
+import nl.han.ica.icss.parser.HandwrittenLexer;
+import nl.han.ica.icss.parser.ICSSLexer;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokenises the input with the generated ICSSLexer or the HandwrittenLexer, reading from a
+ * String or from bytes like a memory-mapped file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class LexerBenchmark {
+
+    public enum Lexer {
+        GENERATED,
+        HANDWRITTEN
+    }
+
+    public enum Input {
+        STRING,
+        BYTE_BUFFER
+    }
+
+    @Param({"level0.icss", "level1.icss", "level2.icss", "level3.icss", "10000", "100000", "1000000"})
+    public String input;
+
+    @Param({"GENERATED", "HANDWRITTEN"})
+    public Lexer lexer;
+
+    @Param({"STRING", "BYTE_BUFFER"})
+    public Input inputType;
+
+    private CharStream charStream;
+
+    @Setup
+    public void setup() {
+        String source = BenchmarkInputs.load(input);
+        if (inputType == Input.STRING) {
+            charStream = CharStreams.fromString(source);
+        } else {
+            byte[] bytes = source.getBytes(StandardCharsets.ISO_8859_1);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes).flip();
+            charStream = new ByteBufferCharStream(buffer);
+        }
+    }
+
+    @Benchmark
+    public int tokenise() {
+        charStream.seek(0);
+        TokenSource tokens;
+        if (lexer == Lexer.GENERATED) {
+            ICSSLexer generated = new ICSSLexer(charStream);
+            generated.removeErrorListeners();
+            tokens = generated;
+        } else {
+            //Reads from the start of the stream, whatever its index
+            tokens = new HandwrittenLexer(charStream);
+        }
+        int count = 0;
+        while (tokens.nextToken().getType() != Token.EOF) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,45 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.parser.ParseMode;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs ICSSParser.stylesheet() on a token list that was lexed up front, once with full LL
+ * prediction and once with SLL first and LL as fallback.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    @Param({"level0.icss", "level1.icss", "level2.icss", "level3.icss", "10000", "100000", "1000000"})
+    public String input;
+
+    @Param({"LL", "SLL_THEN_LL"})
+    public ParseMode parseMode;
+
+    private List<Token> tokens;
+
+    @Setup
+    public void setup() {
+        tokens = BenchmarkInputs.lex(BenchmarkInputs.load(input));
+    }
+
+    @Benchmark
+    public ParseTree parse() {
+        ICSSParser parser = new ICSSParser(new CommonTokenStream(new ListTokenSource(tokens)));
+        return parseMode.parseStylesheet(parser, new BaseErrorListener());
+    }
+}
@@ -0,0 +1,58 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.compact.CompactAST;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds all state of compiling a single document: the AST, the errors found so far,
+ * how far the document got through the pipeline and the generated CSS.
+ * A result is owned by the thread that compiles it and is never shared by the compiler.
+ */
+public class CompilationResult {
+
+    AST ast;
+    CompactAST compactAST;
+    boolean parsed = false;
+    boolean checked = false;
+    boolean transformed = false;
+    String css;
+    final List<String> errors = new ArrayList<>();
+
+    /**
+     * @return the AST, or null when it was replaced by its compact form after the transform stage
+     */
+    public AST getAST() {
+        return ast;
+    }
+    /**
+     * @return the transformed AST when compiled with {@link ICSSCompiler.Options#withCompactAST(boolean)}, otherwise null
+     */
+    public CompactAST getCompactAST() {
+        return compactAST;
+    }
+    public List<String> getErrors() {
+        return errors;
+    }
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+    public boolean isParsed() {
+        return parsed;
+    }
+    public boolean isChecked() {
+        return checked;
+    }
+    public boolean isTransformed() {
+        return transformed;
+    }
+
+    /**
+     * @return the generated CSS, or null when the generate stage has not run
+     */
+    public String getCss() {
+        return css;
+    }
+}
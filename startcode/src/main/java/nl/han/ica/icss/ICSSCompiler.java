@@ -0,0 +1,529 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.compact.CompactAST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.PropertyRegistry;
+import nl.han.ica.icss.checker.Diagnostics;
+import nl.han.ica.icss.checker.SemanticError;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.ASTBuilder;
+import nl.han.ica.icss.parser.ByteBufferCharStream;
+import nl.han.ica.icss.parser.HandwrittenLexer;
+import nl.han.ica.icss.parser.ASTListener;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.parser.ParseMode;
+import nl.han.ica.icss.parser.ParserFactory;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.UnbufferedCharStream;
+import org.antlr.v4.runtime.UnbufferedTokenStream;
+import org.antlr.v4.runtime.misc.Pair;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Stateless ICSS compiler. All per-document state lives in the {@link CompilationResult},
+ * so a single instance can be shared by any number of threads without locking.
+ */
+public class ICSSCompiler {
+
+    /**
+     * The stages of the pipeline, in the order they are run.
+     */
+    public enum Stage {
+        PARSE,
+        CHECK,
+        TRANSFORM,
+        GENERATE
+    }
+
+    /**
+     * How the AST is extracted from the parser.
+     */
+    public enum ASTConstruction {
+        //Build a parse tree and walk it with the ASTListener afterwards
+        PARSE_TREE,
+        //Build the AST from parse events with the ASTBuilder, no parse tree is kept
+        DIRECT
+    }
+
+    /*
+     Copies the text of every token out of the stream, like CommonTokenFactory(true). EOF has no
+     characters, it gets the text a buffered stream shows for it, so errors at the end of the
+     input read the same as in the other compile methods.
+     */
+    private static final class TextCopyingTokenFactory extends CommonTokenFactory {
+
+        private TextCopyingTokenFactory() {
+            super(true);
+        }
+
+        @Override
+        public CommonToken create(Pair<TokenSource, CharStream> source, int type, String text, int channel,
+                                  int start, int stop, int line, int charPositionInLine) {
+            if (type == Token.EOF)
+                text = "<EOF>";
+            return super.create(source, type, text, channel, start, stop, line, charPositionInLine);
+        }
+    }
+
+    /**
+     * Immutable compiler settings. Every with-method returns a modified copy.
+     */
+    public static final class Options {
+
+        public static final Options DEFAULT = new Options();
+
+        private Stage lastStage = Stage.GENERATE;
+        private ParseMode parseMode = ParseMode.SLL_THEN_LL;
+        private ASTConstruction astConstruction = ASTConstruction.PARSE_TREE;
+        private int errorLimit = Integer.MAX_VALUE;
+        private boolean sourcePositions = false;
+        private boolean parallelRules = false;
+        private boolean handwrittenLexer = false;
+        private boolean compactAST = false;
+        private PropertyRegistry properties = PropertyRegistry.DEFAULT;
+
+        private Options() {
+        }
+
+        private Options copy() {
+            Options copy = new Options();
+            copy.lastStage = lastStage;
+            copy.parseMode = parseMode;
+            copy.astConstruction = astConstruction;
+            copy.errorLimit = errorLimit;
+            copy.sourcePositions = sourcePositions;
+            copy.parallelRules = parallelRules;
+            copy.handwrittenLexer = handwrittenLexer;
+            copy.compactAST = compactAST;
+            copy.properties = properties;
+            return copy;
+        }
+
+        public Stage getLastStage() {
+            return lastStage;
+        }
+        public ParseMode getParseMode() {
+            return parseMode;
+        }
+        public ASTConstruction getASTConstruction() {
+            return astConstruction;
+        }
+        public int getErrorLimit() {
+            return errorLimit;
+        }
+        public boolean hasSourcePositions() {
+            return sourcePositions;
+        }
+        public boolean hasParallelRules() {
+            return parallelRules;
+        }
+        public boolean hasHandwrittenLexer() {
+            return handwrittenLexer;
+        }
+        public boolean hasCompactAST() {
+            return compactAST;
+        }
+        public PropertyRegistry getProperties() {
+            return properties;
+        }
+
+        /**
+         * @param lastStage the stage after which compilation stops
+         */
+        public Options upTo(Stage lastStage) {
+            Options copy = copy();
+            copy.lastStage = lastStage;
+            return copy;
+        }
+        public Options withParseMode(ParseMode parseMode) {
+            Options copy = copy();
+            copy.parseMode = parseMode;
+            return copy;
+        }
+        public Options withASTConstruction(ASTConstruction astConstruction) {
+            Options copy = copy();
+            copy.astConstruction = astConstruction;
+            return copy;
+        }
+        /**
+         * @param errorLimit the number of semantic errors after which checking stops, at least 1
+         */
+        public Options withErrorLimit(int errorLimit) {
+            if (errorLimit < 1)
+                throw new IllegalArgumentException("The error limit must be at least 1, not " + errorLimit);
+            Options copy = copy();
+            copy.errorLimit = errorLimit;
+            return copy;
+        }
+        /**
+         * @param sourcePositions whether the parser records where the nodes are, so errors have a line and column
+         */
+        public Options withSourcePositions(boolean sourcePositions) {
+            Options copy = copy();
+            copy.sourcePositions = sourcePositions;
+            return copy;
+        }
+        /**
+         * @param parallelRules whether the stylerules are checked and evaluated on the common fork/join pool
+         */
+        public Options withParallelRules(boolean parallelRules) {
+            Options copy = copy();
+            copy.parallelRules = parallelRules;
+            return copy;
+        }
+        /**
+         * @param handwrittenLexer whether the source is lexed by the {@link HandwrittenLexer} instead of the generated lexer
+         */
+        public Options withHandwrittenLexer(boolean handwrittenLexer) {
+            Options copy = copy();
+            copy.handwrittenLexer = handwrittenLexer;
+            return copy;
+        }
+        /**
+         * @param compactAST whether a compile keeps the transformed AST as a {@link CompactAST} instead of
+         *                   the object AST, and generates the CSS from it
+         */
+        public Options withCompactAST(boolean compactAST) {
+            Options copy = copy();
+            copy.compactAST = compactAST;
+            return copy;
+        }
+        /**
+         * @param properties the properties the checker allows, instead of the ones in properties.txt
+         */
+        public Options withProperties(PropertyRegistry properties) {
+            Options copy = copy();
+            copy.properties = properties;
+            return copy;
+        }
+    }
+
+    private final ParserFactory parserFactory;
+
+    /**
+     * Creates a compiler with its own prediction cache, warmed up with the bundled examples.
+     */
+    public ICSSCompiler() {
+        this(new ParserFactory());
+        parserFactory.warmUp();
+    }
+
+    public ICSSCompiler(ParserFactory parserFactory) {
+        this.parserFactory = parserFactory;
+    }
+
+    public ParserFactory getParserFactory() {
+        return parserFactory;
+    }
+
+    public CompilationResult compile(CharSequence source) {
+        return compile(source, Options.DEFAULT);
+    }
+
+    /**
+     * Runs the pipeline up to the configured last stage, stopping at the first stage that fails.
+     */
+    public CompilationResult compile(CharSequence source, Options options) {
+        return compileParsed(parse(source, options), options);
+    }
+
+    /**
+     * Compiles a file like {@link #compile(CharSequence, Options)}, reading it through a
+     * memory mapping instead of a String, see {@link #parseFile(Path, Options)}.
+     */
+    public CompilationResult compile(Path file, Options options) throws IOException {
+        return compileParsed(parseFile(file, options), options);
+    }
+
+    private CompilationResult compileParsed(CompilationResult result, Options options) {
+        if (!result.parsed || options.lastStage == Stage.PARSE)
+            return result;
+
+        if (!check(result, options) || options.lastStage == Stage.CHECK)
+            return result;
+
+        transform(result, options);
+        if (result.transformed && options.compactAST) {
+            result.compactAST = CompactAST.from(result.ast);
+            result.ast = null;
+        }
+        if (!result.transformed || options.lastStage == Stage.TRANSFORM)
+            return result;
+
+        generate(result);
+        return result;
+    }
+
+    /**
+     * Compiles a stylesheet while it is being read. Every stylerule is checked, evaluated and
+     * written as soon as its closing brace has been parsed, and only the global variables are
+     * kept between stylerules, so memory use does not depend on the size of the input.
+     *
+     * The input is parsed once with full LL prediction, an unbuffered stream cannot be rewound
+     * for the SLL attempt. Nothing is written after the first error, but the CSS of the
+     * stylerules before it already is, so the output has to be discarded when the result has
+     * errors. The result holds neither an AST nor the CSS.
+     * @param source read one character at a time, so pass a buffered reader for files
+     * @param target receives the same CSS as {@link #compile(CharSequence)} produces, it is flushed but not closed
+     */
+    public CompilationResult compile(Reader source, Writer target) throws IOException {
+        return compile(source, target, Options.DEFAULT);
+    }
+
+    /**
+     * Streams a stylesheet like {@link #compile(Reader, Writer)}, checking it with the error limit
+     * and property registry of the options. The other options do not apply to a streamed compile.
+     */
+    public CompilationResult compile(Reader source, Writer target, Options options) throws IOException {
+        CompilationResult result = new CompilationResult();
+        List<String> syntaxErrors = new ArrayList<>();
+        SyntaxErrorCollector errorListener = new SyntaxErrorCollector(syntaxErrors);
+        StatementCompiler statements = new StatementCompiler(result.errors, syntaxErrors, target, options);
+
+        ICSSLexer lexer = parserFactory.createLexer(new UnbufferedCharStream(source));
+        //The characters of a token are gone from the stream once it has been read
+        lexer.setTokenFactory(new TextCopyingTokenFactory());
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errorListener);
+        ICSSParser parser = parserFactory.createParser(new UnbufferedTokenStream<>(lexer));
+        new ASTBuilder(statements).attach(parser);
+        try {
+            ParseMode.LL.parseStylesheet(parser, errorListener);
+        } catch (RuntimeException e) {
+            //Reading the source and writing the target fail with wrapped IOExceptions
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw e;
+        }
+        target.flush();
+        parserFactory.enforceLimit();
+
+        result.errors.addAll(0, syntaxErrors);
+        result.parsed = syntaxErrors.isEmpty();
+        result.checked = result.transformed = result.errors.isEmpty();
+        return result;
+    }
+
+    public CompilationResult parse(CharSequence source) {
+        return parse(source, Options.DEFAULT);
+    }
+
+    public CompilationResult parse(CharSequence source, Options options) {
+        return parse(CharStreams.fromString(source.toString()), options);
+    }
+
+    /**
+     * Parses ICSS from bytes without decoding them into a String first, see {@link ByteBufferCharStream}.
+     * @param source the remaining bytes are the source, the buffer itself is not changed
+     */
+    public CompilationResult parse(ByteBuffer source, Options options) {
+        return parse(new ByteBufferCharStream(source), options);
+    }
+
+    /**
+     * Parses a file by mapping it into memory, so the source does not take up heap space.
+     * The tokens only copy their own text out of the mapping.
+     */
+    public CompilationResult parseFile(Path file, Options options) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException(file + " is too large to parse: " + size + " bytes");
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return parse(new ByteBufferCharStream(bytes, file.toString()), options);
+        }
+    }
+
+    private CompilationResult parse(CharStream inputStream, Options options) {
+        CompilationResult result = new CompilationResult();
+        SyntaxErrorCollector errorListener = new SyntaxErrorCollector(result.errors);
+
+        //Lex (with Antlr's generated lexer, or the hand-written one)
+        TokenSource lexer;
+        if (options.handwrittenLexer) {
+            HandwrittenLexer handwrittenLexer = new HandwrittenLexer(inputStream);
+            handwrittenLexer.setErrorListener(errorListener);
+            lexer = handwrittenLexer;
+        } else {
+            ICSSLexer generatedLexer = parserFactory.createLexer(inputStream);
+            generatedLexer.removeErrorListeners();
+            generatedLexer.addErrorListener(errorListener);
+            lexer = generatedLexer;
+        }
+        try {
+            CommonTokenStream tokens = new CommonTokenStream(lexer);
+
+            //Parse (with Antlr's generated parser)
+            ICSSParser parser = parserFactory.createParser(tokens);
+            if (options.astConstruction == ASTConstruction.DIRECT) {
+                //Build the AST while parsing
+                ASTBuilder builder = new ASTBuilder();
+                if (options.sourcePositions)
+                    builder.recordPositions();
+                builder.attach(parser);
+                options.parseMode.parseStylesheet(parser, errorListener);
+
+                result.ast = builder.getAST();
+            } else {
+                ParseTree parseTree = options.parseMode.parseStylesheet(parser, errorListener);
+
+                //Extract AST from the Antlr parse tree
+                ASTListener listener = new ASTListener();
+                if (options.sourcePositions)
+                    listener.recordPositions();
+                ParseTreeWalker walker = new ParseTreeWalker();
+                walker.walk(listener, parseTree);
+
+                result.ast = listener.getAST();
+            }
+
+        } catch (RecognitionException e) {
+            result.ast = new AST();
+            result.errors.add(e.getMessage());
+
+        } catch (ParseCancellationException e) {
+            result.ast = new AST();
+            result.errors.add("Syntax error");
+        }
+        parserFactory.enforceLimit();
+        result.parsed = result.errors.isEmpty();
+        result.checked = result.transformed = false;
+        return result;
+    }
+
+    public boolean check(CompilationResult result) {
+        return check(result, Options.DEFAULT);
+    }
+
+    public boolean check(CompilationResult result, Options options) {
+        if (result.ast == null)
+            return false;
+
+        Checker checker = new Checker(options.errorLimit, options.properties);
+        Diagnostics diagnostics = options.parallelRules ? checker.checkParallel(result.ast) : checker.check(result.ast);
+        for (SemanticError e : diagnostics.getEntries()) {
+            result.errors.add(e.toString());
+        }
+
+        result.checked = !diagnostics.hasErrors();
+        result.transformed = false;
+        return result.checked;
+    }
+
+    public void transform(CompilationResult result) {
+        transform(result, Options.DEFAULT);
+    }
+
+    public void transform(CompilationResult result, Options options) {
+        if (result.ast == null)
+            return;
+
+        if (options.parallelRules)
+            (new Evaluator()).applyParallel(result.ast);
+        else
+            (new Evaluator()).apply(result.ast);
+
+        result.transformed = result.errors.isEmpty();
+    }
+
+    public String generate(CompilationResult result) {
+        if (result.ast == null && result.compactAST != null)
+            result.css = (new Generator()).generate(result.compactAST);
+        else
+            result.css = (new Generator()).generate(result.ast);
+        return result.css;
+    }
+
+    /**
+     * Writes the CSS of a transformed result to the target in UTF-8, formatted in parallel,
+     * instead of keeping it in the result. {@link CompilationResult#getCss()} stays null.
+     * A result that only holds a {@link CompactAST} is expanded first.
+     */
+    public void generate(CompilationResult result, WritableByteChannel target) throws IOException {
+        AST ast = result.ast == null && result.compactAST != null ? result.compactAST.toAST() : result.ast;
+        (new Generator()).generate(ast, target);
+    }
+
+    /*
+     Checks, evaluates and writes the top-level statements of a streamed stylesheet one at a
+     time. Statements are still checked after a semantic error so all of them are reported,
+     but after a syntax error the statements can no longer be trusted.
+     */
+    private static class StatementCompiler implements Consumer<ASTNode> {
+        private final Checker checker;
+        private final Evaluator evaluator = new Evaluator();
+        private final Generator generator = new Generator();
+        private final List<String> errors;
+        private final List<String> syntaxErrors;
+        private final Writer target;
+        private boolean firstRule = true;
+
+        private StatementCompiler(List<String> errors, List<String> syntaxErrors, Writer target, Options options) {
+            this.checker = new Checker(options.getErrorLimit(), options.getProperties());
+            this.errors = errors;
+            this.syntaxErrors = syntaxErrors;
+            this.target = target;
+            checker.begin();
+            evaluator.begin();
+        }
+
+        @Override
+        public void accept(ASTNode statement) {
+            if (!syntaxErrors.isEmpty())
+                return;
+
+            List<SemanticError> semanticErrors = checker.getDiagnostics().getEntries();
+            int reported = semanticErrors.size();
+            checker.checkStatement(statement);
+            for (SemanticError e : semanticErrors.subList(reported, semanticErrors.size())) {
+                errors.add(e.toString());
+            }
+            if (!errors.isEmpty())
+                return;
+
+            evaluator.applyStatement(statement);
+            if (statement instanceof Stylerule)
+                write(generator.generate((Stylerule) statement));
+        }
+
+        //Same layout as Generator.generate: two blank lines between rules and no trailing newline
+        private void write(String css) {
+            try {
+                if (!firstRule)
+                    target.write("\n\n\n");
+                target.write(css, 0, css.length() - 1);
+                firstRule = false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
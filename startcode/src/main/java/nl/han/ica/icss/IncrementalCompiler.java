@@ -0,0 +1,357 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.ASTVisitor;
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.Stylesheet;
+import nl.han.ica.icss.ast.VariableAssignment;
+import nl.han.ica.icss.ast.VariableReference;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.SemanticError;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.ASTBuilder;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.parser.ParserFactory;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiles successive versions of one document and only redoes the work an edit invalidates.
+ *
+ * The source is split into its top-level statements, the global variable assignments and the
+ * stylerules, by matching braces. After an edit only the statements whose text changed are
+ * parsed again. A statement is checked, evaluated and generated again when it was parsed
+ * again or when a global variable it mentions got another value, all other statements keep
+ * their errors and CSS from the previous version.
+ *
+ * A valid document compiles to exactly the same CSS as {@link ICSSCompiler#compile(CharSequence)}.
+ * Syntax errors are found per statement, so their messages can differ from a full compile.
+ * Like the {@link Pipeline} an IncrementalCompiler holds the state of a single document.
+ */
+public class IncrementalCompiler {
+
+    private final ParserFactory parserFactory;
+    private final ICSSCompiler.Options options;
+    private String source = "";
+    private List<Statement> statements = new ArrayList<>();
+    private int recompiled = 0;
+
+    /**
+     * Creates a compiler with its own prediction cache, warmed up with the bundled examples.
+     */
+    public IncrementalCompiler() {
+        this(new ParserFactory());
+        parserFactory.warmUp();
+    }
+
+    public IncrementalCompiler(ParserFactory parserFactory) {
+        this(parserFactory, ICSSCompiler.Options.DEFAULT);
+    }
+
+    /**
+     * @param options only the error limit and the property registry are used, for checking
+     */
+    public IncrementalCompiler(ParserFactory parserFactory, ICSSCompiler.Options options) {
+        this.parserFactory = parserFactory;
+        this.options = options;
+    }
+
+    /**
+     * Compiles the next version of the document
+     * @param newSource the complete text of the document after the edit
+     * @return a result as if the whole pipeline had run on the new text
+     */
+    public CompilationResult update(String newSource) {
+        split(newSource);
+        source = newSource;
+        CompilationResult result = compile();
+        parserFactory.enforceLimit();
+        return result;
+    }
+
+    /**
+     * @return the number of statements that were checked and evaluated by the last update
+     */
+    public int getRecompiledCount() {
+        return recompiled;
+    }
+
+    /**
+     * @return the global variable assignment or stylerule at the given offset in the source,
+     * or null when there is none or it does not parse
+     */
+    public ASTNode getStatementAt(int offset) {
+        int low = 0;
+        int high = statements.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Statement statement = statements.get(middle);
+            if (offset < statement.start)
+                high = middle - 1;
+            else if (offset >= statement.end)
+                low = middle + 1;
+            else
+                return statement.node;
+        }
+        return null;
+    }
+
+    /*
+     Keeps the statements before and after the changed part of the source, and only splits
+     and parses the text between them. Scanning continues past the edit until it arrives at
+     the start of a kept statement, so an edit that merges or splits statements still yields
+     the same statements as splitting the whole source.
+     */
+    private void split(String newSource) {
+        int oldLength = source.length();
+        int newLength = newSource.length();
+        int shortest = Math.min(oldLength, newLength);
+        int prefix = 0;
+        while (prefix < shortest && source.charAt(prefix) == newSource.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < shortest - prefix
+                && source.charAt(oldLength - 1 - suffix) == newSource.charAt(newLength - 1 - suffix)) {
+            suffix++;
+        }
+        int shift = newLength - oldLength;
+
+        //A statement without terminator may continue in the inserted text
+        int before = 0;
+        while (before < statements.size() && statements.get(before).end <= prefix && statements.get(before).terminated) {
+            before++;
+        }
+        int after = statements.size();
+        while (after > before && statements.get(after - 1).start >= oldLength - suffix) {
+            after--;
+        }
+
+        List<Statement> updated = new ArrayList<>(statements.subList(0, before));
+        int position = before == 0 ? 0 : statements.get(before - 1).end;
+        int next = after;
+        while (true) {
+            while (position < newLength && isWhitespace(newSource.charAt(position))) {
+                position++;
+            }
+            while (next < statements.size() && statements.get(next).start + shift < position) {
+                next++;
+            }
+            if (position == newLength || (next < statements.size() && statements.get(next).start + shift == position))
+                break;
+
+            int end = statementEnd(newSource, position);
+            boolean terminated = end >= 0;
+            if (!terminated)
+                end = newLength;
+            updated.add(parseStatement(newSource.substring(position, end), position, terminated));
+            position = end;
+        }
+        for (Statement statement : statements.subList(next, statements.size())) {
+            statement.start += shift;
+            statement.end += shift;
+            updated.add(statement);
+        }
+        statements = updated;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    /*
+     A statement ends with a semicolon outside braces or with the brace that closes its body.
+     Returns -1 when the source ends first.
+     */
+    private static int statementEnd(String text, int start) {
+        int depth = 0;
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                if (depth <= 1)
+                    return i + 1;
+                depth--;
+            } else if (c == ';' && depth == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private Statement parseStatement(String text, int start, boolean terminated) {
+        Statement statement = new Statement(text, start, terminated);
+        statement.node = parse(text, statement.syntaxErrors);
+        if (statement.node != null)
+            collectVariables(statement.node, statement.variables);
+        return statement;
+    }
+
+    private ASTNode parse(String text, List<String> syntaxErrors) {
+        SyntaxErrorCollector errorListener = new SyntaxErrorCollector(syntaxErrors);
+        ICSSLexer lexer = parserFactory.createLexer(CharStreams.fromString(text));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errorListener);
+        ICSSParser parser = parserFactory.createParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        parser.addErrorListener(errorListener);
+        ASTBuilder builder = new ASTBuilder();
+        builder.attach(parser);
+
+        if (parser.getTokenStream().LA(1) == ICSSParser.CAPITAL_IDENT)
+            parser.variableAssignment();
+        else
+            parser.stylerule();
+        if (parser.getTokenStream().LA(1) != Token.EOF)
+            parser.notifyErrorListeners(parser.getCurrentToken(),
+                    "extraneous input '" + parser.getCurrentToken().getText() + "' expecting <EOF>", null);
+
+        if (!syntaxErrors.isEmpty())
+            return null;
+        return builder.getAST().root.child(0);
+    }
+
+    private static void collectVariables(ASTNode node, Set<String> variables) {
+        node.accept(new ASTVisitor() {
+            @Override
+            public boolean enter(ASTNode node) {
+                if (node instanceof VariableReference)
+                    variables.add(((VariableReference) node).name);
+                return true;
+            }
+        });
+    }
+
+    private CompilationResult compile() {
+        CompilationResult result = new CompilationResult();
+        Stylesheet stylesheet = new Stylesheet();
+        result.ast = new AST(stylesheet);
+        recompiled = 0;
+
+        boolean ruleSeen = false;
+        for (Statement statement : statements) {
+            result.errors.addAll(statement.syntaxErrors);
+            if (statement.node instanceof Stylerule)
+                ruleSeen = true;
+            else if (statement.node != null && ruleSeen)
+                result.errors.add("Syntax error: variable assignment after the first stylerule");
+        }
+        if (!ruleSeen && result.errors.isEmpty())
+            result.errors.add("Syntax error: a stylesheet needs at least one stylerule");
+        result.parsed = result.errors.isEmpty();
+        if (!result.parsed) {
+            for (Statement statement : statements) {
+                if (statement.node != null)
+                    stylesheet.addChild(statement.node);
+            }
+            return result;
+        }
+
+        //The values of the global variables assigned so far
+        Map<String, Literal> globals = new HashMap<>();
+        StringBuilder css = new StringBuilder();
+        for (Statement statement : statements) {
+            Map<String, Literal> inputs = new HashMap<>();
+            for (String name : statement.variables) {
+                inputs.put(name, globals.get(name));
+            }
+            if (!inputs.equals(statement.inputs)) {
+                compileStatement(statement, inputs);
+                recompiled++;
+            }
+            stylesheet.addChild(statement.node);
+            result.errors.addAll(statement.errors);
+
+            if (statement.value != null)
+                globals.put(((VariableAssignment) statement.node).name.name, statement.value);
+            if (statement.css != null)
+                css.append(statement.css).append("\n\n");
+        }
+
+        result.checked = result.transformed = result.errors.isEmpty();
+        if (result.transformed)
+            result.css = css.toString().trim();
+        return result;
+    }
+
+    /*
+     Runs the checker and the evaluator on a single statement, with the globals it depends on
+     declared up front. The evaluator changes the AST, so a statement that has been compiled
+     before is parsed again first.
+     */
+    private void compileStatement(Statement statement, Map<String, Literal> inputs) {
+        if (statement.inputs != null)
+            statement.node = parse(statement.text, new ArrayList<>());
+        statement.inputs = inputs;
+        statement.errors.clear();
+        statement.value = null;
+        statement.css = null;
+
+        Checker checker = new Checker(options.getErrorLimit(), options.getProperties());
+        Evaluator evaluator = new Evaluator();
+        checker.begin();
+        evaluator.begin();
+        for (Map.Entry<String, Literal> input : inputs.entrySet()) {
+            if (input.getValue() != null) {
+                checker.declareGlobal(input.getKey(), input.getValue());
+                evaluator.declareGlobal(input.getKey(), input.getValue());
+            }
+        }
+
+        checker.checkStatement(statement.node);
+        for (SemanticError e : checker.getDiagnostics().getEntries()) {
+            statement.errors.add(e.toString());
+        }
+        if (checker.getDiagnostics().hasErrors())
+            return;
+
+        evaluator.applyStatement(statement.node);
+        if (statement.node instanceof VariableAssignment)
+            statement.value = (Literal) ((VariableAssignment) statement.node).expression;
+        else
+            statement.css = new Generator().generate((Stylerule) statement.node);
+    }
+
+    /*
+     A top-level statement with its place in the source and everything that is known about it.
+     */
+    private static class Statement {
+        private final String text;
+        private int start;
+        private int end;
+        //False when the source ended before the statement did
+        private final boolean terminated;
+        private final List<String> syntaxErrors = new ArrayList<>();
+        //Null when the statement does not parse
+        private ASTNode node;
+        //Names of all variables the statement mentions
+        private final Set<String> variables = new HashSet<>();
+
+        //The values of those variables it was compiled with, null when it has not been compiled yet
+        private Map<String, Literal> inputs;
+        private final List<String> errors = new ArrayList<>();
+        //The value of a global variable assignment, or the CSS of a stylerule, when it compiled without errors
+        private Literal value;
+        private String css;
+
+        private Statement(String text, int start, boolean terminated) {
+            this.text = text;
+            this.start = start;
+            this.end = start + text.length();
+            this.terminated = terminated;
+        }
+    }
+}
@@ -1,143 +1,72 @@
 package nl.han.ica.icss;
 
 import nl.han.ica.icss.ast.AST;
-import nl.han.ica.icss.checker.Checker;
-import nl.han.ica.icss.checker.SemanticError;
-import nl.han.ica.icss.generator.Generator;
-import nl.han.ica.icss.parser.ASTListener;
-import nl.han.ica.icss.parser.ICSSLexer;
-import nl.han.ica.icss.parser.ICSSParser;
-import nl.han.ica.icss.transforms.Evaluator;
-import org.antlr.v4.runtime.*;
-import org.antlr.v4.runtime.atn.ATNConfigSet;
-import org.antlr.v4.runtime.dfa.DFA;
-import org.antlr.v4.runtime.misc.ParseCancellationException;
-import org.antlr.v4.runtime.tree.ParseTree;
-import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
-import java.util.ArrayList;
-import java.util.BitSet;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 
-public class Pipeline implements ANTLRErrorListener {
+/**
+ * Step-by-step front end on top of {@link ICSSCompiler}, used by the GUI.
+ * A Pipeline holds the state of the document that is being worked on, the compiler it
+ * delegates to is shared and holds none.
+ */
+public class Pipeline {
 
-    private AST ast;
-    private boolean parsed = false;
-    private boolean checked = false;
-    private boolean transformed = false;
-    private List<String> errors;
+    private static final ICSSCompiler compiler = new ICSSCompiler();
+    //Errors in the editor say where they are
+    private static final ICSSCompiler.Options OPTIONS = ICSSCompiler.Options.DEFAULT.withSourcePositions(true);
+
+    //Used by every stage, so the GUI sees the same errors as a compile with these options
+    private final ICSSCompiler.Options options;
+    private CompilationResult result;
 
     public Pipeline() {
-        errors = new ArrayList<>();
+        this(OPTIONS);
+    }
+
+    /**
+     * @param options for example with another property registry or error limit, source positions are always recorded
+     */
+    public Pipeline(ICSSCompiler.Options options) {
+        this.options = options.withSourcePositions(true);
+        result = new CompilationResult();
     }
 
     public AST getAST() {
-        return ast;
+        return result.getAST();
     }
     public List<String> getErrors() {
-        return errors;
+        return result.getErrors();
     }
     public boolean isParsed() {
-        return parsed;
+        return result.isParsed();
     }
     public boolean isChecked() {
-        return checked;
+        return result.isChecked();
     }
     public boolean isTransformed() {
-        return transformed;
+        return result.isTransformed();
     }
 
     public void parseString(String input) {
-
-        //Lex (with Antlr's generated lexer)
-        CharStream inputStream = CharStreams.fromString(input);
-        ICSSLexer lexer = new ICSSLexer(inputStream);
-        lexer.removeErrorListeners();
-        lexer.addErrorListener(this);
-        errors.clear();
-        try {
-            CommonTokenStream tokens = new CommonTokenStream(lexer);
-
-            //Parse (with Antlr's generated parser)
-            ICSSParser parser = new ICSSParser(tokens);
-            parser.removeErrorListeners();
-            parser.addErrorListener(this);
-
-            ParseTree parseTree = parser.stylesheet();
-
-            //Extract AST from the Antlr parse tree
-            ASTListener listener = new ASTListener();
-            ParseTreeWalker walker = new ParseTreeWalker();
-            walker.walk(listener, parseTree);
-
-            this.ast = listener.getAST();
-
-        } catch (RecognitionException e) {
-            this.ast = new AST();
-            errors.add(e.getMessage());
-
-        } catch (ParseCancellationException e) {
-            this.ast = new AST();
-            errors.add("Syntax error");
-        }
-        parsed = errors.isEmpty();
-        checked = transformed = false;
+        result = compiler.parse(input, options);
+    }
+    public void parseFile(Path file) throws IOException {
+        result = compiler.parseFile(file, options);
     }
     public boolean check() {
-            if(ast == null)
-                return false;
-
-           (new Checker()).check(this.ast);
-
-            ArrayList<SemanticError> errors = this.ast.getErrors();
-            if (!errors.isEmpty()) {
-                for (SemanticError e : errors) {
-                    this.errors.add(e.toString());
-                }
-            }
-
-            checked = errors.isEmpty();
-            transformed = false;
-            return errors.isEmpty();
+        return compiler.check(result, options);
     }
 
     public void clearErrors(){
-        errors.clear();
+        result.errors.clear();
     }
 
     public void transform() {
-        if(ast == null)
-            return;
-
-        (new Evaluator()).apply(ast);
-
-
-        transformed = errors.isEmpty();
+        compiler.transform(result, options);
     }
     public String generate() {
-        Generator generator = new Generator();
-        return generator.generate(ast);
-    }
-
-    //Catch ANTLR errors
-    @Override
-    public void reportAmbiguity(Parser arg0, DFA arg1, int arg2, int arg3,
-                                boolean arg4, BitSet arg5, ATNConfigSet arg6) {
-    }
-
-    @Override
-    public void reportAttemptingFullContext(Parser arg0, DFA arg1, int arg2,
-                                            int arg3, BitSet arg4, ATNConfigSet arg5) {
-    }
-
-    @Override
-    public void reportContextSensitivity(Parser arg0, DFA arg1, int arg2,
-                                         int arg3, int arg4, ATNConfigSet arg5) {
-    }
-
-    @Override
-    public void syntaxError(Recognizer<?, ?> arg0, Object arg1, int arg2,
-                            int arg3, String arg4, RecognitionException arg5) {
-        errors.add("Syntax error: " + arg4);
+        return compiler.generate(result);
     }
 }
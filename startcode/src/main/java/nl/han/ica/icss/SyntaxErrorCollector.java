@@ -0,0 +1,25 @@
+package nl.han.ica.icss;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+
+import java.util.List;
+
+/**
+ * Collects the lexer and parser errors of one document in its own error list.
+ */
+class SyntaxErrorCollector extends BaseErrorListener {
+
+    private final List<String> errors;
+
+    SyntaxErrorCollector(List<String> errors) {
+        this.errors = errors;
+    }
+
+    @Override
+    public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                            int charPositionInLine, String msg, RecognitionException e) {
+        errors.add("Syntax error: " + msg);
+    }
+}
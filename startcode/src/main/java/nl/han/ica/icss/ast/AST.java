@@ -10,6 +10,12 @@ public class AST {
 	//The root of the tree
 	public Stylesheet root;
 
+	//Number of variable slots given out by the Binder, -1 when the AST has not been bound
+	public int variableSlots = -1;
+
+	//Where the nodes are in the source, null when the parser did not record it
+	public SourcePositions positions;
+
 	public AST() {
 		root = new Stylesheet();
 	}
@@ -24,12 +30,12 @@ public class AST {
         collectErrors(errors,root);
         return errors;
     }
-    private void collectErrors(ArrayList<SemanticError> errors, ASTNode node) {
+    public static void collectErrors(ArrayList<SemanticError> errors, ASTNode node) {
 	    if(node.hasError()) {
 	        errors.add(node.getError());
         }
-        for(ASTNode child: node.getChildren()) {
-	        collectErrors(errors,child);
+        for(int i = 0; i < node.childCount(); i++) {
+	        collectErrors(errors,node.child(i));
         }
     }
 	@Override
@@ -3,7 +3,6 @@ package nl.han.ica.icss.ast;
 import nl.han.ica.icss.checker.SemanticError;
 
 import java.util.ArrayList;
-import java.util.List;
 
 public class ASTNode {
 
@@ -19,10 +18,40 @@ public class ASTNode {
 
     /*
      Different AST nodes use different attributes to store their children.
-     This method provides a unified interface.
+     This method provides a unified interface. It makes a new list, so walks
+     over the whole tree use childCount and child, or accept, instead.
      */
     public ArrayList<ASTNode> getChildren() {
-        return new ArrayList<>();
+        int count = childCount();
+        ArrayList<ASTNode> children = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            children.add(child(i));
+        }
+        return children;
+    }
+
+    /*
+     The children in the same order as getChildren, without making a list.
+     */
+    public int childCount() {
+        return 0;
+    }
+
+    public ASTNode child(int index) {
+        throw new IndexOutOfBoundsException(index);
+    }
+
+    /**
+     * Walks this node and all nodes below it, depth first, without allocating.
+     */
+    public void accept(ASTVisitor visitor) {
+        if (visitor.enter(this)) {
+            int count = childCount();
+            for (int i = 0; i < count; i++) {
+                child(i).accept(visitor);
+            }
+        }
+        visitor.exit(this);
     }
     /*
     By implementing this method in a subclass you can easily create AST nodes
@@ -46,6 +75,13 @@ public class ASTNode {
         this.error = new SemanticError(description);
     }
 
+    /**
+     * @param error the error the node is marked with, or null to clear it
+     */
+    public void setError(SemanticError error) {
+        this.error = error;
+    }
+
     public boolean hasError() {
         return error != null;
     }
@@ -60,9 +96,9 @@ public class ASTNode {
 		builder.append("[");
 		builder.append(getNodeLabel());	
 		builder.append("|");
-		for(ASTNode child : getChildren()) {
-			child.toString(builder);
-		}	
+		for(int i = 0; i < childCount(); i++) {
+			child(i).toString(builder);
+		}
 		builder.append("]");
 	}
 
@@ -71,12 +107,11 @@ public class ASTNode {
         if(! (o instanceof ASTNode))
             return false;
         //Compare all children
-        List<ASTNode> thisChildren = this.getChildren();
-        List<ASTNode> otherChildren = ((ASTNode) o).getChildren();
-        if(otherChildren.size() != thisChildren.size())
+        ASTNode other = (ASTNode) o;
+        if(other.childCount() != this.childCount())
             return false;
-        for(int i = 0; i < thisChildren.size(); i++ ) {
-            if(!thisChildren.get(i).equals(otherChildren.get(i))) {
+        for(int i = 0; i < this.childCount(); i++ ) {
+            if(!this.child(i).equals(other.child(i))) {
                 return false;
             }
         }
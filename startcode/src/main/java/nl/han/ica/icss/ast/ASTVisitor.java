@@ -0,0 +1,18 @@
+package nl.han.ica.icss.ast;
+
+/**
+ * Receives the nodes of a tree in the order {@link ASTNode#accept(ASTVisitor)} walks them:
+ * every node is entered before and exited after its children.
+ */
+public interface ASTVisitor {
+
+    /**
+     * @return false to skip the children of the node, it is still exited
+     */
+    default boolean enter(ASTNode node) {
+        return true;
+    }
+
+    default void exit(ASTNode node) {
+    }
+}
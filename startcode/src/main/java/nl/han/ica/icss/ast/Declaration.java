@@ -1,6 +1,5 @@
 package nl.han.ica.icss.ast;
 
-import java.util.ArrayList;
 import java.util.Objects;
 
 /*
@@ -23,14 +22,16 @@ public class Declaration extends ASTNode {
 	}
 
 	@Override
-	public ArrayList<ASTNode> getChildren() {
-
-		ArrayList<ASTNode> children = new ArrayList<>();
-		if(property != null)
-		    children.add(property);
-		if(expression != null)
-		    children.add(expression);
-		return children;
+	public int childCount() {
+		return (property != null ? 1 : 0) + (expression != null ? 1 : 0);
+	}
+	@Override
+	public ASTNode child(int index) {
+		if (index == 0 && property != null)
+			return property;
+		if (index < childCount() && expression != null)
+			return expression;
+		throw new IndexOutOfBoundsException(index);
 	}
 	@Override
 	public ASTNode addChild(ASTNode child) {
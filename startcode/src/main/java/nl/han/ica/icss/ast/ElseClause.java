@@ -19,11 +19,12 @@ public class ElseClause extends ASTNode{
         return "Else_Clause";
     }
     @Override
-    public ArrayList<ASTNode> getChildren() {
-        ArrayList<ASTNode> children = new ArrayList<>();
-        children.addAll(body);
-
-        return children;
+    public int childCount() {
+        return body.size();
+    }
+    @Override
+    public ASTNode child(int index) {
+        return body.get(index);
     }
 
     @Override
@@ -29,14 +29,21 @@ public class IfClause extends ASTNode {
         return "If_Clause";
     }
     @Override
-    public ArrayList<ASTNode> getChildren() {
-        ArrayList<ASTNode> children = new ArrayList<>();
-        children.add(conditionalExpression);
-        children.addAll(body);
-        if (elseClause!=null)
-            children.add(elseClause);
-
-        return children;
+    public int childCount() {
+        return (conditionalExpression != null ? 1 : 0) + body.size() + (elseClause != null ? 1 : 0);
+    }
+    @Override
+    public ASTNode child(int index) {
+        if (conditionalExpression != null) {
+            if (index == 0)
+                return conditionalExpression;
+            index--;
+        }
+        if (index < body.size())
+            return body.get(index);
+        if (index == body.size() && elseClause != null)
+            return elseClause;
+        throw new IndexOutOfBoundsException(index);
     }
 
     @Override
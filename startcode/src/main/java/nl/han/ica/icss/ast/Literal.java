@@ -1,4 +1,26 @@
 package nl.han.ica.icss.ast;
 
+import nl.han.ica.icss.checker.SemanticError;
+
+/**
+ * A value in the AST. Literals are immutable and the factories of the subclasses hand out
+ * shared instances, so one literal can be part of many expressions at once. They therefore
+ * do not carry a semantic error: setting one is ignored and {@link #hasError()} stays false.
+ * The error is still reported through the Diagnostics of the checker.
+ */
 public abstract class Literal extends Expression {
+
+    /**
+     * Does nothing, a shared literal cannot be marked for one expression only.
+     */
+    @Override
+    public void setError(String description) {
+    }
+
+    /**
+     * Does nothing, see {@link #setError(String)}.
+     */
+    @Override
+    public void setError(SemanticError error) {
+    }
 }
@@ -1,6 +1,5 @@
 package nl.han.ica.icss.ast;
 
-import java.util.ArrayList;
 
 public abstract class Operation extends Expression {
 
@@ -8,13 +7,17 @@ public abstract class Operation extends Expression {
     public Expression rhs;
 
     @Override
-    public ArrayList<ASTNode> getChildren() {
-        ArrayList<ASTNode> children = new ArrayList<>();
-        if(lhs != null)
-            children.add(lhs);
-        if(rhs != null)
-            children.add(rhs);
-        return children;
+    public int childCount() {
+        return (lhs != null ? 1 : 0) + (rhs != null ? 1 : 0);
+    }
+
+    @Override
+    public ASTNode child(int index) {
+        if (index == 0 && lhs != null)
+            return lhs;
+        if (index < childCount() && rhs != null)
+            return rhs;
+        throw new IndexOutOfBoundsException(index);
     }
 
     @Override
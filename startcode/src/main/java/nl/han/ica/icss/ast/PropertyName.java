@@ -3,14 +3,16 @@ package nl.han.ica.icss.ast;
 public class PropertyName extends ASTNode {
 
     public String name;
+    //The symbol of the name, see Symbols
+    public final int symbol;
 
     public PropertyName() {
-        super();
-        name = "undefined";
+        this("undefined");
     }
     public PropertyName(String name) {
         super();
         this.name = name;
+        this.symbol = Symbols.of(name);
     }
 
     @Override
@@ -0,0 +1,98 @@
+package nl.han.ica.icss.ast;
+
+import java.util.Arrays;
+
+/**
+ * Where the nodes of an AST come from in the source, kept next to the tree so the nodes
+ * themselves hold nothing for it. An AST without positions does not have this table at all.
+ * A node can be in several tables, for example when it is moved to another AST, each
+ * table knows its own position for it.
+ *
+ * Literals are shared between trees and have no position, errors are never about them.
+ */
+public class SourcePositions {
+
+    //Per node: line, column, start offset and length
+    private static final int FIELDS = 4;
+
+    private int[] positions = new int[FIELDS * 64];
+    private int count = 0;
+
+    //The index of every node in positions, by identity. Open addressing, at most half full
+    private ASTNode[] nodes = new ASTNode[128];
+    private int[] indices = new int[128];
+
+    /**
+     * @param line the line the node starts on, counting from 1
+     * @param column the column the node starts at, counting from 1
+     * @param start the offset of the first character of the node
+     * @param length the number of characters of the node
+     */
+    public void add(ASTNode node, int line, int column, int start, int length) {
+        if (FIELDS * count == positions.length)
+            positions = Arrays.copyOf(positions, 2 * positions.length);
+        int index = FIELDS * count;
+        positions[index] = line;
+        positions[index + 1] = column;
+        positions[index + 2] = start;
+        positions[index + 3] = length;
+        int slot = slotOf(node);
+        if (nodes[slot] == null) {
+            if (2 * (count + 1) > nodes.length) {
+                growNodes();
+                slot = slotOf(node);
+            }
+            nodes[slot] = node;
+        }
+        indices[slot] = count++;
+    }
+
+    public boolean contains(ASTNode node) {
+        return nodes[slotOf(node)] != null;
+    }
+
+    public int getLine(ASTNode node) {
+        return positions[FIELDS * indexOf(node)];
+    }
+    public int getColumn(ASTNode node) {
+        return positions[FIELDS * indexOf(node) + 1];
+    }
+    public int getStart(ASTNode node) {
+        return positions[FIELDS * indexOf(node) + 2];
+    }
+    public int getLength(ASTNode node) {
+        return positions[FIELDS * indexOf(node) + 3];
+    }
+
+    private int indexOf(ASTNode node) {
+        int slot = slotOf(node);
+        if (nodes[slot] == null)
+            throw new IllegalArgumentException("No position for " + node.getNodeLabel());
+        return indices[slot];
+    }
+
+    //The slot of the node in nodes, or the empty slot where it would go
+    private int slotOf(ASTNode node) {
+        int hash = System.identityHashCode(node);
+        int mask = nodes.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (nodes[slot] != null && nodes[slot] != node) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void growNodes() {
+        ASTNode[] oldNodes = nodes;
+        int[] oldIndices = indices;
+        nodes = new ASTNode[2 * oldNodes.length];
+        indices = new int[2 * oldNodes.length];
+        for (int i = 0; i < oldNodes.length; i++) {
+            if (oldNodes[i] != null) {
+                int slot = slotOf(oldNodes[i]);
+                nodes[slot] = oldNodes[i];
+                indices[slot] = oldIndices[i];
+            }
+        }
+    }
+}
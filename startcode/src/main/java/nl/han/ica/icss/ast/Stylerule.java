@@ -22,12 +22,14 @@ public class Stylerule extends ASTNode {
 		return "Stylerule";
 	}
 	@Override
-	public ArrayList<ASTNode> getChildren() {
-		ArrayList<ASTNode> children = new ArrayList<>();
-		children.addAll(selectors);
-		children.addAll(body);
-
-		return children;
+	public int childCount() {
+		return selectors.size() + body.size();
+	}
+	@Override
+	public ASTNode child(int index) {
+		if (index < selectors.size())
+			return selectors.get(index);
+		return body.get(index - selectors.size());
 	}
 
     @Override
@@ -0,0 +1,80 @@
+package nl.han.ica.icss.ast;
+
+import java.util.Arrays;
+
+/**
+ * Keeps a single String for every name in a stylesheet, so all selectors, properties and
+ * variables with the same name share it. A name can be looked up from any CharSequence,
+ * a String is only created the first time the name is seen.
+ *
+ * Not thread-safe, every parse has its own table.
+ */
+public class SymbolTable {
+
+    //Open addressing, never more than half full
+    private String[] symbols = new String[64];
+    private int size = 0;
+
+    /**
+     * @return the String for the name, the same instance every time the same name is passed
+     */
+    public String intern(CharSequence name) {
+        int hash = hashCode(name);
+        int mask = symbols.length - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            String symbol = symbols[i];
+            if (symbol == null) {
+                symbol = name.toString();
+                symbols[i] = symbol;
+                if (2 * ++size > symbols.length)
+                    grow();
+                return symbol;
+            }
+            if (symbol.hashCode() == hash && symbol.contentEquals(name))
+                return symbol;
+        }
+    }
+
+    /**
+     * Forgets all names, the Strings handed out so far stay valid.
+     */
+    public void clear() {
+        Arrays.fill(symbols, null);
+        size = 0;
+    }
+
+    /**
+     * @return the number of different names
+     */
+    public int size() {
+        return size;
+    }
+
+    //The same hash as String.hashCode, so it can be compared with the hash a String caches
+    private static int hashCode(CharSequence name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + name.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private void grow() {
+        String[] old = symbols;
+        symbols = new String[2 * old.length];
+        int mask = symbols.length - 1;
+        for (String symbol : old) {
+            if (symbol == null)
+                continue;
+            int i = spread(symbol.hashCode()) & mask;
+            while (symbols[i] != null) {
+                i = (i + 1) & mask;
+            }
+            symbols[i] = symbol;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package nl.han.ica.icss.ast;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every property and variable name a small number, its symbol. The nodes with such a
+ * name carry its symbol, so comparing names and looking things up by name is done with an
+ * int, for example in the PropertyRegistry or the hash table of the Binder.
+ *
+ * There is one numbering for all compilations, so nodes built by different parsers and
+ * by hand can be mixed in one AST. It is thread-safe. Symbols are never forgotten, so
+ * selectors, which can be anything, do not get one. Nothing is sized by the number of
+ * symbols either.
+ */
+public final class Symbols {
+
+    private static final ConcurrentHashMap<String, Integer> symbols = new ConcurrentHashMap<>();
+    //Written under the lock, a new symbol is in here before it is in the map
+    private static volatile String[] names = new String[256];
+    private static int count = 0;
+
+    private Symbols() {
+    }
+
+    /**
+     * @return the symbol of the name, the same for equal names
+     */
+    public static int of(String name) {
+        Integer symbol = symbols.get(name);
+        if (symbol != null)
+            return symbol;
+        return add(name);
+    }
+
+    /**
+     * @return the name of a symbol
+     */
+    public static String name(int symbol) {
+        return names[symbol];
+    }
+
+    /**
+     * @return the number of symbols, every symbol is lower than this
+     */
+    public static int count() {
+        return symbols.size();
+    }
+
+    private static synchronized int add(String name) {
+        Integer symbol = symbols.get(name);
+        if (symbol != null)
+            return symbol;
+        if (count == names.length)
+            names = Arrays.copyOf(names, 2 * count);
+        names[count] = name;
+        symbols.put(name, count);
+        return count++;
+    }
+}
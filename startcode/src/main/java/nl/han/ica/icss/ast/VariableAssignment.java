@@ -1,6 +1,5 @@
 package nl.han.ica.icss.ast;
 
-import java.util.ArrayList;
 import java.util.Objects;
 
 /**
@@ -12,6 +11,9 @@ public class VariableAssignment extends ASTNode {
 	public VariableReference name;
 	public Expression expression;
 
+	//Slot of the variable with the same name that was visible before this assignment, -1 when there was none
+	public int previousSlot = -1;
+
 	@Override
 	public String getNodeLabel() {
 		return "VariableAssignment (" + name.name + ")";
@@ -29,14 +31,17 @@ public class VariableAssignment extends ASTNode {
 	}
 
 	@Override
-	public ArrayList<ASTNode> getChildren() {
-
-		ArrayList<ASTNode> children = new ArrayList<>();
-		if(name != null)
-			children.add(name);
-		if(expression != null)
-			children.add(expression);
-		return children;
+	public int childCount() {
+		return (name != null ? 1 : 0) + (expression != null ? 1 : 0);
+	}
+
+	@Override
+	public ASTNode child(int index) {
+		if (index == 0 && name != null)
+			return name;
+		if (index < childCount() && expression != null)
+			return expression;
+		throw new IndexOutOfBoundsException(index);
 	}
 
 	@Override
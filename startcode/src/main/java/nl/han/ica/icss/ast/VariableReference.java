@@ -5,10 +5,17 @@ import java.util.Objects;
 public class VariableReference extends Expression {
 
 	public String name;
-	
+	//The symbol of the name, see Symbols
+	public final int symbol;
+
+	//Index of the variable in the slot arrays of the Checker and Evaluator, set by the Binder.
+	//-1 when the reference has not been bound or the variable is not defined.
+	public int slot = -1;
+
 	public VariableReference(String name) {
 		super();
 		this.name = name;
+		this.symbol = Symbols.of(name);
 	}
 
 	@Override
@@ -0,0 +1,272 @@
+package nl.han.ica.icss.ast.compact;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * An AST stored in three primitive arrays instead of one object per node.
+ *
+ * The nodes are kept in pre-order. For every node the arrays hold its {@link NodeKind}, the
+ * number of nodes in its subtree, which gives the range of its children, and an int payload
+ * with its value or the index of its name in a table of distinct names. Property names and
+ * variable names are part of the node they belong to. A node costs 9 bytes, an ASTNode with
+ * its lists easily ten times as much.
+ *
+ * A CompactAST is immutable and only stores the structure: errors and variable slots are not
+ * kept. It is walked with a {@link Cursor}, or turned back into an {@link AST} for the passes
+ * that change the tree.
+ */
+public class CompactAST {
+
+    private final byte[] kinds;
+    private final int[] sizes;
+    private final int[] payloads;
+    private final String[] names;
+
+    private CompactAST(byte[] kinds, int[] sizes, int[] payloads, String[] names) {
+        this.kinds = kinds;
+        this.sizes = sizes;
+        this.payloads = payloads;
+        this.names = names;
+    }
+
+    public static CompactAST from(AST ast) {
+        return new Encoder().encode(ast.root);
+    }
+
+    /**
+     * @return the number of nodes
+     */
+    public int size() {
+        return kinds.length;
+    }
+
+    /**
+     * @return a cursor on the stylesheet
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * @return a new unbound AST with the same structure as the one this was made from
+     */
+    public AST toAST() {
+        Cursor cursor = cursor();
+        return new AST((Stylesheet) decode(cursor));
+    }
+
+    private static ASTNode decode(Cursor cursor) {
+        ASTNode node = decodeNode(cursor);
+        if (cursor.firstChild()) {
+            do {
+                node.addChild(decode(cursor));
+            } while (cursor.nextSibling());
+            cursor.parent();
+        }
+        return node;
+    }
+
+    private static ASTNode decodeNode(Cursor cursor) {
+        switch (cursor.kind()) {
+            case STYLESHEET: return new Stylesheet();
+            case TAG_SELECTOR: return new TagSelector(cursor.name());
+            case CLASS_SELECTOR: return new ClassSelector(cursor.name());
+            case ID_SELECTOR: return new IdSelector(cursor.name());
+            case STYLERULE: return new Stylerule();
+            case DECLARATION: return new Declaration(cursor.name());
+            case VARIABLE_ASSIGNMENT: return new VariableAssignment().addChild(new VariableReference(cursor.name()));
+            case VARIABLE_REFERENCE: return new VariableReference(cursor.name());
+            case IF_CLAUSE: return new IfClause();
+            case ELSE_CLAUSE: return new ElseClause();
+            case ADD_OPERATION: return new AddOperation();
+            case SUBTRACT_OPERATION: return new SubtractOperation();
+            case MULTIPLY_OPERATION: return new MultiplyOperation();
+            case PIXEL_LITERAL: return PixelLiteral.valueOf(cursor.value());
+            case PERCENTAGE_LITERAL: return PercentageLiteral.valueOf(cursor.value());
+            case SCALAR_LITERAL: return ScalarLiteral.valueOf(cursor.value());
+            case COLOR_LITERAL: return ColorLiteral.valueOf(cursor.value());
+            case BOOL_LITERAL: return BoolLiteral.valueOf(cursor.value() != 0);
+        }
+        throw new IllegalStateException("Unknown node kind " + cursor.kind());
+    }
+
+    /**
+     * Points at one node of the tree and moves between parents, children and siblings
+     * without allocating. Moving to the first child remembers the parent, so every
+     * successful {@link #firstChild()} is matched by a {@link #parent()}.
+     */
+    public class Cursor {
+        private int position = 0;
+        //The positions of the ancestors
+        private int[] parents = new int[16];
+        private int depth = 0;
+
+        private Cursor() { }
+
+        public NodeKind kind() {
+            return NodeKind.of(kinds[position]);
+        }
+
+        /**
+         * @return the value of a pixel, percentage, scalar, colour or bool literal
+         */
+        public int value() {
+            return payloads[position];
+        }
+
+        /**
+         * @return the text of a selector or the name of a property or variable
+         */
+        public String name() {
+            return names[payloads[position]];
+        }
+
+        public boolean hasChildren() {
+            return sizes[position] > 1;
+        }
+
+        /**
+         * Moves to the first child.
+         * @return false, without moving, when the node has no children
+         */
+        public boolean firstChild() {
+            if (sizes[position] == 1)
+                return false;
+            if (depth == parents.length)
+                parents = Arrays.copyOf(parents, 2 * depth);
+            parents[depth++] = position;
+            position++;
+            return true;
+        }
+
+        /**
+         * Moves to the next child of the same parent.
+         * @return false, without moving, when this is the last child
+         */
+        public boolean nextSibling() {
+            if (depth == 0)
+                return false;
+            int parent = parents[depth - 1];
+            int next = position + sizes[position];
+            if (next >= parent + sizes[parent])
+                return false;
+            position = next;
+            return true;
+        }
+
+        /**
+         * Moves back to the parent.
+         * @return false when the cursor is on the stylesheet
+         */
+        public boolean parent() {
+            if (depth == 0)
+                return false;
+            position = parents[--depth];
+            return true;
+        }
+    }
+
+    private static class Encoder {
+        private byte[] kinds = new byte[256];
+        private int[] sizes = new int[256];
+        private int[] payloads = new int[256];
+        private int count = 0;
+        private final HashMap<String, Integer> nameIndices = new HashMap<>();
+        private final ArrayList<String> names = new ArrayList<>();
+
+        private CompactAST encode(Stylesheet stylesheet) {
+            encodeNode(stylesheet);
+            return new CompactAST(Arrays.copyOf(kinds, count), Arrays.copyOf(sizes, count),
+                    Arrays.copyOf(payloads, count), names.toArray(new String[0]));
+        }
+
+        private void encodeNode(ASTNode node) {
+            int position = add(node);
+            if (node instanceof Declaration) {
+                encodeChild(((Declaration) node).expression);
+            } else if (node instanceof VariableAssignment) {
+                encodeChild(((VariableAssignment) node).expression);
+            } else if (!(node instanceof VariableReference)) {
+                for (int i = 0; i < node.childCount(); i++) {
+                    encodeNode(node.child(i));
+                }
+            }
+            sizes[position] = count - position;
+        }
+
+        private void encodeChild(ASTNode child) {
+            if (child != null)
+                encodeNode(child);
+        }
+
+        private int add(ASTNode node) {
+            if (count == kinds.length) {
+                kinds = Arrays.copyOf(kinds, 2 * count);
+                sizes = Arrays.copyOf(sizes, 2 * count);
+                payloads = Arrays.copyOf(payloads, 2 * count);
+            }
+            int position = count++;
+            kinds[position] = (byte) kindOf(node).ordinal();
+            payloads[position] = payloadOf(node);
+            return position;
+        }
+
+        private static NodeKind kindOf(ASTNode node) {
+            if (node instanceof Stylesheet) return NodeKind.STYLESHEET;
+            if (node instanceof TagSelector) return NodeKind.TAG_SELECTOR;
+            if (node instanceof ClassSelector) return NodeKind.CLASS_SELECTOR;
+            if (node instanceof IdSelector) return NodeKind.ID_SELECTOR;
+            if (node instanceof Stylerule) return NodeKind.STYLERULE;
+            if (node instanceof Declaration) return NodeKind.DECLARATION;
+            if (node instanceof VariableAssignment) return NodeKind.VARIABLE_ASSIGNMENT;
+            if (node instanceof VariableReference) return NodeKind.VARIABLE_REFERENCE;
+            if (node instanceof IfClause) return NodeKind.IF_CLAUSE;
+            if (node instanceof ElseClause) return NodeKind.ELSE_CLAUSE;
+            if (node instanceof AddOperation) return NodeKind.ADD_OPERATION;
+            if (node instanceof SubtractOperation) return NodeKind.SUBTRACT_OPERATION;
+            if (node instanceof MultiplyOperation) return NodeKind.MULTIPLY_OPERATION;
+            if (node instanceof PixelLiteral) return NodeKind.PIXEL_LITERAL;
+            if (node instanceof PercentageLiteral) return NodeKind.PERCENTAGE_LITERAL;
+            if (node instanceof ScalarLiteral) return NodeKind.SCALAR_LITERAL;
+            if (node instanceof ColorLiteral) return NodeKind.COLOR_LITERAL;
+            if (node instanceof BoolLiteral) return NodeKind.BOOL_LITERAL;
+            throw new IllegalArgumentException("Unknown node type: " + node.getClass().getSimpleName());
+        }
+
+        private int payloadOf(ASTNode node) {
+            if (node instanceof TagSelector) return nameIndex(((TagSelector) node).tag);
+            if (node instanceof ClassSelector) return nameIndex(((ClassSelector) node).cls);
+            if (node instanceof IdSelector) return nameIndex(((IdSelector) node).id);
+            if (node instanceof Declaration) return nameIndex(((Declaration) node).property.name);
+            if (node instanceof VariableAssignment) return nameIndex(((VariableAssignment) node).name.name);
+            if (node instanceof VariableReference) return nameIndex(((VariableReference) node).name);
+            if (node instanceof PixelLiteral) return ((PixelLiteral) node).value;
+            if (node instanceof PercentageLiteral) return ((PercentageLiteral) node).value;
+            if (node instanceof ScalarLiteral) return ((ScalarLiteral) node).value;
+            if (node instanceof ColorLiteral) return ((ColorLiteral) node).rgb;
+            if (node instanceof BoolLiteral) return ((BoolLiteral) node).value ? 1 : 0;
+            return 0;
+        }
+
+        private int nameIndex(String name) {
+            Integer index = nameIndices.get(name);
+            if (index == null) {
+                index = names.size();
+                nameIndices.put(name, index);
+                names.add(name);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package nl.han.ica.icss.ast.compact;
+
+/**
+ * The kind of a node in a {@link CompactAST}. The payload of a node depends on its kind.
+ */
+public enum NodeKind {
+    STYLESHEET,
+    //Payload: index of the selector text in the name table
+    TAG_SELECTOR,
+    CLASS_SELECTOR,
+    ID_SELECTOR,
+    STYLERULE,
+    //Payload: index of the property name, the only child is the expression
+    DECLARATION,
+    //Payload: index of the variable name, the only child is the expression
+    VARIABLE_ASSIGNMENT,
+    //Payload: index of the variable name
+    VARIABLE_REFERENCE,
+    //Children: the condition, the body and optionally an else clause
+    IF_CLAUSE,
+    ELSE_CLAUSE,
+    ADD_OPERATION,
+    SUBTRACT_OPERATION,
+    MULTIPLY_OPERATION,
+    //Payload: the value
+    PIXEL_LITERAL,
+    PERCENTAGE_LITERAL,
+    SCALAR_LITERAL,
+    //Payload: the packed rgb value
+    COLOR_LITERAL,
+    //Payload: 1 for TRUE, 0 for FALSE
+    BOOL_LITERAL;
+
+    private static final NodeKind[] VALUES = values();
+
+    static NodeKind of(byte ordinal) {
+        return VALUES[ordinal];
+    }
+}
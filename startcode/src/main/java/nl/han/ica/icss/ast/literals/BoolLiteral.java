@@ -1,17 +1,34 @@
 package nl.han.ica.icss.ast.literals;
 
 import nl.han.ica.icss.ast.Literal;
-import java.util.Objects;
 
 public class BoolLiteral extends Literal {
-    public boolean value;
+    public static final BoolLiteral TRUE = new BoolLiteral(true);
+    public static final BoolLiteral FALSE = new BoolLiteral(false);
 
+    public final boolean value;
+
+    /**
+     * Use {@link #valueOf(boolean)} or the constants.
+     */
     public BoolLiteral(boolean value) {
         this.value = value;
     }
     public BoolLiteral(String text) {
-        this.value = text.equals("TRUE");
+        this(text.equals("TRUE"));
+    }
+
+    public static BoolLiteral valueOf(boolean value) {
+        return value ? TRUE : FALSE;
     }
+
+    /**
+     * @param text TRUE or FALSE
+     */
+    public static BoolLiteral parse(String text) {
+        return valueOf(text.equals("TRUE"));
+    }
+
     @Override
     public String getNodeLabel() {
         String textValue = value ? "TRUE" : "FALSE";
@@ -22,13 +39,12 @@ public class BoolLiteral extends Literal {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
         BoolLiteral that = (BoolLiteral) o;
         return value == that.value;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(value);
+        return Boolean.hashCode(value);
     }
 }
@@ -2,17 +2,69 @@ package nl.han.ica.icss.ast.literals;
 
 import nl.han.ica.icss.ast.Literal;
 
-import java.util.Objects;
-
 public class ColorLiteral extends Literal {
-    public String value;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    //Recently used colours, by a hash of their value. Races only cost an extra instance.
+    private static final ColorLiteral[] CACHE = new ColorLiteral[4096];
+
+    //The red, green and blue components in the lower 24 bits, like 0xff0000
+    public final int rgb;
+
+    /**
+     * Use {@link #valueOf(int)} or {@link #parse(String)}, which share the instances for the same colour.
+     */
+    public ColorLiteral(int rgb) {
+        this.rgb = rgb & 0xffffff;
+    }
+    public ColorLiteral(String text) {
+        this(parseValue(text));
+    }
+
+    public static ColorLiteral valueOf(int rgb) {
+        rgb &= 0xffffff;
+        int index = (rgb ^ (rgb >>> 12)) & (CACHE.length - 1);
+        ColorLiteral color = CACHE[index];
+        if (color == null || color.rgb != rgb) {
+            color = new ColorLiteral(rgb);
+            CACHE[index] = color;
+        }
+        return color;
+    }
+
+    /**
+     * @param text a colour like #ff0000
+     */
+    public static ColorLiteral parse(String text) {
+        return valueOf(parseValue(text));
+    }
+
+    private static int parseValue(String text) {
+        return Integer.parseInt(text, 1, text.length(), 16);
+    }
+
+    /**
+     * Appends the colour as # followed by six lowercase hexadecimal digits.
+     */
+    public StringBuilder appendHex(StringBuilder builder) {
+        return appendHex(builder, rgb);
+    }
 
-    public ColorLiteral(String value) {
-        this.value = value;
+    public static StringBuilder appendHex(StringBuilder builder, int rgb) {
+        builder.append('#');
+        for (int shift = 20; shift >= 0; shift -= 4) {
+            builder.append(HEX_DIGITS[(rgb >>> shift) & 0xf]);
+        }
+        return builder;
     }
+
+    public String getHex() {
+        return appendHex(new StringBuilder(7)).toString();
+    }
+
     @Override
     public String getNodeLabel() {
-        return "Color literal (" + value + ")";
+        return "Color literal (" + getHex() + ")";
     }
 
 
@@ -21,11 +73,10 @@ public class ColorLiteral extends Literal {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ColorLiteral that = (ColorLiteral) o;
-        return Objects.equals(value, that.value);
+        return rgb == that.rgb;
     }
     @Override
     public int hashCode() {
-
-        return Objects.hash(value);
+        return Integer.hashCode(rgb);
     }
 }
@@ -2,17 +2,46 @@ package nl.han.ica.icss.ast.literals;
 
 import nl.han.ica.icss.ast.Literal;
 
-import java.util.Objects;
-
 public class PercentageLiteral extends Literal {
-    public int value;
+    private static final int CACHE_LOW = -128;
+    private static final PercentageLiteral[] CACHE = new PercentageLiteral[1152];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new PercentageLiteral(CACHE_LOW + i);
+        }
+    }
 
+    public final int value;
+
+    /**
+     * Use {@link #valueOf(int)}, which shares the instances for common percentages.
+     */
     public PercentageLiteral(int value) {
         this.value = value;
     }
     public PercentageLiteral(String text) {
-        this.value = Integer.parseInt(text.substring(0, text.length() - 1));
+        this(parseValue(text));
+    }
+
+    public static PercentageLiteral valueOf(int value) {
+        int index = value - CACHE_LOW;
+        if (index >= 0 && index < CACHE.length)
+            return CACHE[index];
+        return new PercentageLiteral(value);
     }
+
+    /**
+     * @param text a percentage like 50%
+     */
+    public static PercentageLiteral parse(String text) {
+        return valueOf(parseValue(text));
+    }
+
+    private static int parseValue(String text) {
+        return Integer.parseInt(text, 0, text.length() - 1, 10);
+    }
+
     @Override
     public String getNodeLabel() {
         return "Percentage literal (" + value + ")";
@@ -22,13 +51,12 @@ public class PercentageLiteral extends Literal {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
         PercentageLiteral that = (PercentageLiteral) o;
         return value == that.value;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(value);
+        return Integer.hashCode(value);
     }
 }
@@ -2,17 +2,46 @@ package nl.han.ica.icss.ast.literals;
 
 import nl.han.ica.icss.ast.Literal;
 
-import java.util.Objects;
-
 public class PixelLiteral extends Literal {
-    public int value;
+    private static final int CACHE_LOW = -128;
+    private static final PixelLiteral[] CACHE = new PixelLiteral[1152];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new PixelLiteral(CACHE_LOW + i);
+        }
+    }
 
+    public final int value;
+
+    /**
+     * Use {@link #valueOf(int)}, which shares the instances for common sizes.
+     */
     public PixelLiteral(int value) {
         this.value = value;
     }
     public PixelLiteral(String text) {
-        this.value = Integer.parseInt(text.substring(0, text.length() - 2));
+        this(parseValue(text));
+    }
+
+    public static PixelLiteral valueOf(int value) {
+        int index = value - CACHE_LOW;
+        if (index >= 0 && index < CACHE.length)
+            return CACHE[index];
+        return new PixelLiteral(value);
     }
+
+    /**
+     * @param text a size like 10px
+     */
+    public static PixelLiteral parse(String text) {
+        return valueOf(parseValue(text));
+    }
+
+    private static int parseValue(String text) {
+        return Integer.parseInt(text, 0, text.length() - 2, 10);
+    }
+
     @Override
     public String getNodeLabel() {
         return "Pixel literal (" + value + ")";
@@ -22,13 +51,12 @@ public class PixelLiteral extends Literal {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
         PixelLiteral that = (PixelLiteral) o;
         return value == that.value;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(value);
+        return Integer.hashCode(value);
     }
 }
@@ -2,17 +2,46 @@ package nl.han.ica.icss.ast.literals;
 
 import nl.han.ica.icss.ast.Literal;
 
-import java.util.Objects;
-
 public class ScalarLiteral extends Literal {
-    public int value;
+    private static final int CACHE_LOW = -128;
+    private static final ScalarLiteral[] CACHE = new ScalarLiteral[1152];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new ScalarLiteral(CACHE_LOW + i);
+        }
+    }
 
+    public final int value;
+
+    /**
+     * Use {@link #valueOf(int)}, which shares the instances for common numbers.
+     */
     public ScalarLiteral(int value) {
         this.value = value;
     }
     public ScalarLiteral(String text) {
-        this.value = Integer.parseInt(text);
+        this(parseValue(text));
+    }
+
+    public static ScalarLiteral valueOf(int value) {
+        int index = value - CACHE_LOW;
+        if (index >= 0 && index < CACHE.length)
+            return CACHE[index];
+        return new ScalarLiteral(value);
     }
+
+    /**
+     * @param text a number like 2
+     */
+    public static ScalarLiteral parse(String text) {
+        return valueOf(parseValue(text));
+    }
+
+    private static int parseValue(String text) {
+        return Integer.parseInt(text);
+    }
+
     @Override
     public String getNodeLabel() {
         return "Scalar literal (" + value + ")";
@@ -22,13 +51,12 @@ public class ScalarLiteral extends Literal {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
         ScalarLiteral that = (ScalarLiteral) o;
         return value == that.value;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(value);
+        return Integer.hashCode(value);
     }
 }
@@ -7,53 +7,192 @@ import nl.han.ica.icss.ast.operations.AddOperation;
 import nl.han.ica.icss.ast.operations.MultiplyOperation;
 import nl.han.ica.icss.ast.operations.SubtractOperation;
 import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.parallel.Chunks;
+import nl.han.ica.icss.resolver.Binder;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
 
 
 public class Checker {
 
-    private LinkedList<HashMap<String, ExpressionType>> variableTypes;
+    //Large enough that a task is worth handing to another thread
+    private static final int RULES_PER_TASK = 64;
 
-    public void check(AST ast) {
-        variableTypes = new LinkedList<>();
-        checkStylesheet(ast.root);
+    private final int errorLimit;
+    private final PropertyRegistry properties;
+    private Binder binder;
+    //The type of every variable slot, see the Binder
+    private ExpressionType[] variableTypes;
+    private Diagnostics diagnostics;
+    private SourcePositions positions;
+
+    public Checker() {
+        this(Integer.MAX_VALUE);
     }
 
-    private void checkStylesheet(Stylesheet sheet) {
-        variableTypes.push(new HashMap<>());
-        for (ASTNode child : sheet.getChildren()) {
-            if (child instanceof VariableAssignment) {
-                checkVariableAssignment((VariableAssignment) child);
-            } else if (child instanceof Stylerule) {
-                checkStylerule((Stylerule) child);
+    /**
+     * @param errorLimit the number of errors after which checking stops, at least 1
+     */
+    public Checker(int errorLimit) {
+        this(errorLimit, PropertyRegistry.DEFAULT);
+    }
+
+    /**
+     * @param errorLimit the number of errors after which checking stops
+     * @param properties the properties declarations may use
+     */
+    public Checker(int errorLimit, PropertyRegistry properties) {
+        if (errorLimit < 1)
+            throw new IllegalArgumentException("The error limit must be at least 1, not " + errorLimit);
+        this.errorLimit = errorLimit;
+        this.properties = properties;
+    }
+
+    /**
+     * Checks the stylesheet and marks the nodes with an error.
+     * @return the errors, in the order of the nodes
+     */
+    public Diagnostics check(AST ast) {
+        begin(ast.positions);
+        for (ASTNode child : ast.root.body) {
+            if (diagnostics.isFull())
+                break;
+            checkStatement(child);
+        }
+        //Binding happens while checking, the Evaluator uses the same slots
+        ast.variableSlots = binder.getSlotCount();
+        return diagnostics;
+    }
+
+    /**
+     * Checks like {@link #check(AST)}, but the stylerules are checked in parallel once the
+     * global variables are known. Each stylerule only sees the globals and its own variables,
+     * so they are independent; the errors are still in the order of the nodes.
+     */
+    public Diagnostics checkParallel(AST ast) {
+        begin(ast.positions);
+        List<ASTNode> statements = ast.root.body;
+        int firstRule = 0;
+        while (firstRule < statements.size() && !(statements.get(firstRule) instanceof Stylerule)) {
+            if (diagnostics.isFull())
+                break;
+            checkStatement(statements.get(firstRule++));
+        }
+        int slots = binder.getSlotCount();
+        if (!diagnostics.isFull()) {
+            List<Checker> parts = Chunks.map(firstRule, statements.size(), RULES_PER_TASK, (from, to) -> {
+                Checker part = fork();
+                for (int i = from; i < to && !part.diagnostics.isFull(); i++) {
+                    part.checkStatement(statements.get(i));
+                }
+                return part;
+            });
+            for (Checker part : parts) {
+                diagnostics.append(part.diagnostics);
+                slots = Math.max(slots, part.binder.getSlotCount());
             }
         }
-        variableTypes.pop();
+        ast.variableSlots = slots;
+        return diagnostics;
+    }
+
+    /*
+     A checker that starts with the variables known to this one, but collects its own errors.
+     A global variable assigned after the first stylerule would not be seen by the stylerules
+     of the other parts, but the grammar puts them all before the first stylerule.
+     */
+    private Checker fork() {
+        return new Checker(this);
+    }
+
+    private Checker(Checker parent) {
+        errorLimit = parent.errorLimit;
+        properties = parent.properties;
+        positions = parent.positions;
+        binder = parent.binder.copy();
+        variableTypes = parent.variableTypes.clone();
+        diagnostics = new Diagnostics(errorLimit, positions);
+    }
+
+    /**
+     * Starts checking a stylesheet whose top-level statements are passed to
+     * {@link #checkStatement(ASTNode)} one at a time, in source order.
+     */
+    public void begin() {
+        begin(null);
+    }
+
+    private void begin(SourcePositions positions) {
+        this.positions = positions;
+        binder = new Binder();
+        variableTypes = new ExpressionType[16];
+        diagnostics = new Diagnostics(errorLimit, positions);
+    }
+
+    /**
+     * @return the errors found since {@link #begin()}
+     */
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Makes a global variable with the type of the given value known to the statements
+     * checked after it, as if its assignment had been checked.
+     */
+    public void declareGlobal(String name, Literal value) {
+        int slot = binder.declareGlobal(name);
+        growSlots();
+        variableTypes[slot] = getExpressionType(value);
+    }
+
+    /**
+     * Checks a global variable assignment or a stylerule. Only the types of the
+     * global variables are kept between calls.
+     */
+    public void checkStatement(ASTNode statement) {
+        if (statement instanceof VariableAssignment) {
+            checkVariableAssignment((VariableAssignment) statement);
+        } else if (statement instanceof Stylerule) {
+            checkStylerule((Stylerule) statement);
+        }
+    }
+
+    private void growSlots() {
+        if (variableTypes.length < binder.getSlotCount())
+            variableTypes = Arrays.copyOf(variableTypes, Math.max(binder.getSlotCount(), 2 * variableTypes.length));
     }
 
     private void checkVariableAssignment(VariableAssignment assignment) {
+        //Errors are reported in the order of the nodes, the assignment before its expression
+        int mark = diagnostics.mark();
         ExpressionType type = getExpressionType(assignment.expression);
+        binder.bindAssignment(assignment);
+        growSlots();
+        ExpressionType existingType = getTypeOfSlot(assignment.previousSlot);
+        //A variable keeps the type it had before when its assignment is rejected
+        variableTypes[assignment.name.slot] = existingType;
 
         if (type == ExpressionType.UNDEFINED) {
-            assignment.setError("Variabele '" + assignment.name.name + "' heeft een onbekend type.");
+            diagnostics.error(mark, assignment, "Variabele '" + assignment.name.name + "' heeft een onbekend type.");
             return;
         }
 
-        ExpressionType existingType = getTypeOfVariable(assignment.name.name);
         if (existingType != ExpressionType.UNDEFINED && existingType != type) {
-            assignment.setError("Variabele '" + assignment.name.name + "' heeft type "
+            diagnostics.error(mark, assignment, "Variabele '" + assignment.name.name + "' heeft type "
                     + existingType + " en kan niet opnieuw toegewezen worden met type " + type);
             return;
         }
 
-        variableTypes.peek().put(assignment.name.name, type);
+        variableTypes[assignment.name.slot] = type;
     }
     private void checkStylerule(Stylerule rule) {
-        variableTypes.push(new HashMap<>());
-
-        for (ASTNode child : rule.getChildren()) {
+        binder.openScope();
+        for (ASTNode child : rule.body) {
+            if (diagnostics.isFull())
+                break;
             if (child instanceof VariableAssignment) {
                 checkVariableAssignment((VariableAssignment) child);
             }else if (child instanceof Declaration) {
@@ -62,40 +201,51 @@ public class Checker {
                 checkIfClause((IfClause) child);
             }
         }
-        variableTypes.pop();
+        binder.closeScope();
     }
 
     private void checkDeclaration(Declaration declaration) {
         String propertyName = declaration.property.name;
+        int property = declaration.property.symbol;
+        int mark = diagnostics.mark();
         ExpressionType type = getExpressionType(declaration.expression);
 
-        if (propertyName.equals("width") || propertyName.equals("height")) {
-            if (type != ExpressionType.PIXEL && type != ExpressionType.PERCENTAGE) {
-                declaration.setError("Property '" + propertyName + "' vereist PIXEL of PERCENTAGE, maar kreeg " + type);
-            }
-        } else if (propertyName.equals("color") || propertyName.equals("background-color")) {
-            if (type != ExpressionType.COLOR) {
-                declaration.setError("Property '" + propertyName + "' expects a color value.");
-            }
-        }else{
-            declaration.setError("Property '" + propertyName + "' is niet toegestaan in ICSS.");
+        if (!properties.isKnown(property)) {
+            diagnostics.error(mark, declaration, "Property '" + propertyName + "' is niet toegestaan in ICSS.");
+        } else if (!properties.allows(property, type)) {
+            diagnostics.error(mark, declaration, describeAllowedTypes(propertyName, property, type));
         }
     }
 
+    private String describeAllowedTypes(String propertyName, int property, ExpressionType type) {
+        EnumSet<ExpressionType> allowed = properties.getAllowedTypes(property);
+        if (allowed.equals(EnumSet.of(ExpressionType.COLOR)))
+            return "Property '" + propertyName + "' expects a color value.";
+        StringBuilder types = new StringBuilder();
+        for (ExpressionType allowedType : allowed) {
+            if (types.length() > 0)
+                types.append(" of ");
+            types.append(allowedType);
+        }
+        return "Property '" + propertyName + "' vereist " + types + ", maar kreeg " + type;
+    }
+
     private void checkIfClause(IfClause ifClause) {
+        int mark = diagnostics.mark();
         ExpressionType conditionType = getExpressionType(ifClause.conditionalExpression);
         if (conditionType != ExpressionType.BOOL) {
-            ifClause.setError("If-conditie moet een BOOLEAN zijn, maar kreeg " + conditionType);
+            diagnostics.error(mark, ifClause, "If-conditie moet een BOOLEAN zijn, maar kreeg " + conditionType);
         }
 
         // Nieuwe scope voor de if-body
-        variableTypes.push(new HashMap<>());
-        for (ASTNode child : ifClause.getChildren()) {
+        binder.openScope();
+        for (ASTNode child : ifClause.body) {
+            if (diagnostics.isFull()) break;
             if (child instanceof VariableAssignment) checkVariableAssignment((VariableAssignment) child);
             if (child instanceof Declaration) checkDeclaration((Declaration) child);
             if (child instanceof IfClause) checkIfClause((IfClause) child);
         }
-        variableTypes.pop();
+        binder.closeScope();
 
         if (ifClause.elseClause != null) {
             checkElseClause(ifClause.elseClause);
@@ -104,13 +254,14 @@ public class Checker {
 
     private void checkElseClause(ElseClause elseClause) {
         // Nieuwe scope voor else-body
-        variableTypes.push(new HashMap<>());
-        for (ASTNode child : elseClause.getChildren()) {
+        binder.openScope();
+        for (ASTNode child : elseClause.body) {
+            if (diagnostics.isFull()) break;
             if (child instanceof VariableAssignment) checkVariableAssignment((VariableAssignment) child);
             if (child instanceof Declaration) checkDeclaration((Declaration) child);
             if (child instanceof IfClause) checkIfClause((IfClause) child);
         }
-        variableTypes.pop();
+        binder.closeScope();
     }
 
     private ExpressionType getExpressionType(Expression expr) {
@@ -119,37 +270,36 @@ public class Checker {
         if (expr instanceof ColorLiteral) return ExpressionType.COLOR;
         if (expr instanceof ScalarLiteral) return ExpressionType.SCALAR;
         if (expr instanceof BoolLiteral) return ExpressionType.BOOL;
-        if (expr instanceof VariableReference) return getTypeOfVariable(((VariableReference) expr).name);
+        if (expr instanceof VariableReference) return getTypeOfSlot(binder.bindReference((VariableReference) expr));
         if (expr instanceof Operation) return evaluateOperation((Operation) expr);
         return ExpressionType.UNDEFINED;
     }
 
-    private ExpressionType getTypeOfVariable(String varName) {
-        for (HashMap<String, ExpressionType> scope : variableTypes) {
-            if (scope.containsKey(varName)) return scope.get(varName);
-        }
-        return ExpressionType.UNDEFINED;
+    private ExpressionType getTypeOfSlot(int slot) {
+        if (slot < 0) return ExpressionType.UNDEFINED;
+        return variableTypes[slot];
     }
 
     private ExpressionType evaluateOperation(Operation op) {
+        int mark = diagnostics.mark();
         ExpressionType leftType = getExpressionType(op.lhs);
         ExpressionType rightType = getExpressionType(op.rhs);
         // Check op onbekende types
         if (leftType == ExpressionType.UNDEFINED || rightType == ExpressionType.UNDEFINED) {
-            op.setError("Onbekend type in operatie.");
+            diagnostics.error(mark, op, "Onbekend type in operatie.");
             return ExpressionType.UNDEFINED;
         }
 
         // Kleuren zijn nooit toegestaan
         if (leftType == ExpressionType.COLOR || rightType == ExpressionType.COLOR) {
-            op.setError("Kleuren kunnen niet in operaties gebruikt worden.");
+            diagnostics.error(mark, op, "Kleuren kunnen niet in operaties gebruikt worden.");
             return ExpressionType.UNDEFINED;
         }
 
         if (op instanceof AddOperation || op instanceof SubtractOperation) {
             // Beide operands moeten hetzelfde type zijn
             if (leftType != rightType) {
-                op.setError("Type mismatch in operatie: " + leftType + " vs " + rightType);
+                diagnostics.error(mark, op, "Type mismatch in operatie: " + leftType + " vs " + rightType);
                 return ExpressionType.UNDEFINED;
             }
             return leftType;
@@ -160,7 +310,7 @@ public class Checker {
             if (leftType == ExpressionType.SCALAR) return rightType;
             if (rightType == ExpressionType.SCALAR) return leftType;
 
-            op.setError("Vermenigvuldiging vereist minimaal één SCALAR operand.");
+            diagnostics.error(mark, op, "Vermenigvuldiging vereist minimaal één SCALAR operand.");
             return ExpressionType.UNDEFINED;
         }
 
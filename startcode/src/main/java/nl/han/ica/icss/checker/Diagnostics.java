@@ -0,0 +1,129 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.SourcePositions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The errors and warnings the Checker found, in the order of the nodes they are about.
+ *
+ * At most a limited number of errors is kept. Once that many have been found the
+ * collection is full and the Checker stops checking.
+ */
+public class Diagnostics {
+
+    private final ArrayList<SemanticError> entries = new ArrayList<>();
+    private final int errorLimit;
+    private final SourcePositions positions;
+    private int errorCount = 0;
+
+    public Diagnostics() {
+        this(Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * @param errorLimit the number of errors after which no more are collected, at least 1
+     * @param positions where the nodes are in the source, or null when that is not known
+     */
+    public Diagnostics(int errorLimit, SourcePositions positions) {
+        if (errorLimit < 1)
+            throw new IllegalArgumentException("The error limit must be at least 1, not " + errorLimit);
+        this.errorLimit = errorLimit;
+        this.positions = positions;
+    }
+
+    /**
+     * @return the position the next entry gets, to report an entry about a node
+     * before the entries about its children that are found first
+     */
+    public int mark() {
+        return entries.size();
+    }
+
+    public void error(ASTNode node, String description) {
+        add(entries.size(), Severity.ERROR, node, description);
+    }
+
+    /**
+     * Adds an error at a position returned by {@link #mark()}.
+     */
+    public void error(int mark, ASTNode node, String description) {
+        add(mark, Severity.ERROR, node, description);
+    }
+
+    public void warning(ASTNode node, String description) {
+        add(entries.size(), Severity.WARNING, node, description);
+    }
+
+    private void add(int mark, Severity severity, ASTNode node, String description) {
+        if (severity == Severity.ERROR) {
+            if (isFull()) {
+                //An error before the last one that was kept still makes the cut
+                int last = lastError();
+                if (mark > last)
+                    return;
+                entries.remove(last).node.setError((SemanticError) null);
+                errorCount--;
+            }
+            errorCount++;
+        }
+        SemanticError error = new SemanticError(severity, node, description);
+        if (positions != null && positions.contains(node)) {
+            error.line = positions.getLine(node);
+            error.column = positions.getColumn(node);
+            error.length = positions.getLength(node);
+        }
+        entries.add(mark, error);
+        if (severity == Severity.ERROR)
+            node.setError(error);
+    }
+
+    private int lastError() {
+        int last = entries.size() - 1;
+        while (entries.get(last).severity != Severity.ERROR) {
+            last--;
+        }
+        return last;
+    }
+
+    /**
+     * Adds the entries of diagnostics about nodes that come after the nodes of these, as far
+     * as the error limit allows. The nodes of the errors that do not fit lose their error.
+     */
+    public void append(Diagnostics later) {
+        for (SemanticError entry : later.entries) {
+            if (entry.severity == Severity.ERROR) {
+                if (isFull()) {
+                    entry.node.setError((SemanticError) null);
+                    continue;
+                }
+                errorCount++;
+            }
+            entries.add(entry);
+        }
+    }
+
+    /**
+     * @return true when the error limit has been reached
+     */
+    public boolean isFull() {
+        return errorCount >= errorLimit;
+    }
+
+    public boolean hasErrors() {
+        return errorCount > 0;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return all errors and warnings
+     */
+    public List<SemanticError> getEntries() {
+        return entries;
+    }
+}
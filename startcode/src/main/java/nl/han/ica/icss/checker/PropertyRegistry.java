@@ -0,0 +1,127 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.Symbols;
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The properties a declaration may use and the types of the values each of them takes.
+ *
+ * The types are kept as a bit mask per property symbol, see {@link Symbols}, so checking a
+ * declaration is an array lookup however many properties there are. A registry does not
+ * change once it is made, {@link #with(String, Set)} returns a copy, so one registry can be
+ * shared by checkers on several threads.
+ */
+public final class PropertyRegistry {
+
+    /**
+     * The properties of ICSS, read from the properties.txt resource.
+     */
+    public static final PropertyRegistry DEFAULT = fromResource("properties.txt");
+
+    //The allowed types of every property by its symbol, one bit per ExpressionType, 0 for an unknown property
+    private final int[] allowedTypes;
+
+    private PropertyRegistry(int[] allowedTypes) {
+        this.allowedTypes = allowedTypes;
+    }
+
+    /**
+     * @return a registry without any properties
+     */
+    public static PropertyRegistry empty() {
+        return new PropertyRegistry(new int[0]);
+    }
+
+    /**
+     * Reads a registry with one property per line, like {@code width: PIXEL PERCENTAGE}.
+     * Empty lines and lines starting with # are skipped.
+     */
+    public static PropertyRegistry load(InputStream input) throws IOException {
+        PropertyRegistry registry = empty();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            int colon = line.indexOf(':');
+            if (colon <= 0)
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected 'property: TYPE ...' but found '" + line + "'");
+            EnumSet<ExpressionType> types = EnumSet.noneOf(ExpressionType.class);
+            for (String type : line.substring(colon + 1).strip().split("\\s+")) {
+                try {
+                    types.add(ExpressionType.valueOf(type));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": unknown type '" + type + "'");
+                }
+            }
+            registry = registry.with(line.substring(0, colon).strip(), types);
+        }
+        return registry;
+    }
+
+    /**
+     * Loads a registry from a resource on the class path, see {@link #load(InputStream)}.
+     */
+    public static PropertyRegistry fromResource(String resource) {
+        try (InputStream input = PropertyRegistry.class.getClassLoader().getResourceAsStream(resource)) {
+            if (input == null)
+                throw new IllegalArgumentException("Resource " + resource + " not found");
+            return load(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return a copy of this registry in which the property takes the given types, replacing any it took before
+     */
+    public PropertyRegistry with(String property, Set<ExpressionType> types) {
+        int symbol = Symbols.of(property);
+        int[] copy = Arrays.copyOf(allowedTypes, Math.max(allowedTypes.length, symbol + 1));
+        int mask = 0;
+        for (ExpressionType type : types) {
+            mask |= 1 << type.ordinal();
+        }
+        copy[symbol] = mask;
+        return new PropertyRegistry(copy);
+    }
+
+    /**
+     * @return whether the property with this symbol may be used at all
+     */
+    public boolean isKnown(int property) {
+        return property < allowedTypes.length && allowedTypes[property] != 0;
+    }
+
+    /**
+     * @return whether the property with this symbol takes a value of the type
+     */
+    public boolean allows(int property, ExpressionType type) {
+        return property < allowedTypes.length && (allowedTypes[property] & (1 << type.ordinal())) != 0;
+    }
+
+    /**
+     * @return the types the property with this symbol takes, empty when it is unknown
+     */
+    public EnumSet<ExpressionType> getAllowedTypes(int property) {
+        EnumSet<ExpressionType> types = EnumSet.noneOf(ExpressionType.class);
+        for (ExpressionType type : ExpressionType.values()) {
+            if (allows(property, type))
+                types.add(type);
+        }
+        return types;
+    }
+}
@@ -1,12 +1,31 @@
 package nl.han.ica.icss.checker;
 
+import nl.han.ica.icss.ast.ASTNode;
+
 public class SemanticError {
 	public String description;
+	public Severity severity = Severity.ERROR;
+	//The node the error is about, null when it is not known
+	public ASTNode node;
+	//Where the node is in the source, all 0 when it is not known
+	public int line;
+	public int column;
+	public int length;
 
 	public SemanticError(String description) {
 		this.description = description;
 	}
+	public SemanticError(Severity severity, ASTNode node, String description) {
+		this.severity = severity;
+		this.node = node;
+		this.description = description;
+	}
+	public boolean hasPosition() {
+		return line > 0;
+	}
 	public String toString() {
-		return "ERROR: " + description;
+		if (hasPosition())
+			return severity + " at line " + line + ", column " + column + ": " + description;
+		return severity + ": " + description;
 	}
 }
@@ -0,0 +1,6 @@
+package nl.han.ica.icss.checker;
+
+public enum Severity {
+    ERROR,
+    WARNING
+}
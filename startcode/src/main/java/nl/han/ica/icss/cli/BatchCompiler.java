@@ -0,0 +1,194 @@
+package nl.han.ica.icss.cli;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.ICSSCompiler;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Headless entry point that compiles every .icss file below one or more source paths.
+ *
+ * Usage: BatchCompiler [-o outputRoot] [-j threads] source...
+ *
+ * Without -o the generated .css file is written next to its .icss source, otherwise it is
+ * written to the same relative location below the output root. A file that is passed
+ * explicitly and does not end in .icss gets .css appended to its name. The process exits with
+ * status 1 when any file fails to parse, check or transform.
+ */
+public class BatchCompiler {
+
+    private static final String SOURCE_EXTENSION = ".icss";
+    private static final String TARGET_EXTENSION = ".css";
+
+    //Only the CSS is needed, so skip the parse tree, but errors should say where they are.
+    //The CSS is generated straight into the target file.
+    private static final ICSSCompiler.Options OPTIONS = ICSSCompiler.Options.DEFAULT
+            .withASTConstruction(ICSSCompiler.ASTConstruction.DIRECT)
+            .withSourcePositions(true)
+            .upTo(ICSSCompiler.Stage.TRANSFORM);
+
+    private final ICSSCompiler compiler = new ICSSCompiler();
+    private final Path outputRoot;
+    private final int threads;
+
+    public BatchCompiler(Path outputRoot, int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Need at least one worker thread");
+        this.outputRoot = outputRoot;
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) {
+        Path outputRoot = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> sources = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-o") && i + 1 < args.length) {
+                outputRoot = Paths.get(args[++i]);
+            } else if (args[i].equals("-j") && i + 1 < args.length) {
+                try {
+                    threads = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    threads = 0;
+                }
+                if (threads < 1) {
+                    usage();
+                    return;
+                }
+            } else if (args[i].startsWith("-")) {
+                usage();
+                return;
+            } else {
+                sources.add(Paths.get(args[i]));
+            }
+        }
+        if (sources.isEmpty()) {
+            usage();
+            return;
+        }
+
+        try {
+            int failed = new BatchCompiler(outputRoot, threads).compileAll(sources);
+            System.exit(failed == 0 ? 0 : 1);
+        } catch (IOException e) {
+            System.err.println(e);
+            System.exit(2);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: BatchCompiler [-o outputRoot] [-j threads] source...");
+        System.exit(2);
+    }
+
+    /**
+     * Compiles all .icss files below the given paths on a fixed size worker pool
+     * @param sources files or directories to compile
+     * @return the number of files that could not be compiled
+     */
+    public int compileAll(List<Path> sources) throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<FileResult>> pending = new ArrayList<>();
+            for (Path source : sources) {
+                for (Path file : findSources(source)) {
+                    Path target = targetFor(source, file);
+                    pending.add(workers.submit(() -> compileFile(file, target)));
+                }
+            }
+
+            //Report in submission order so the log does not depend on scheduling
+            int failed = 0;
+            for (Future<FileResult> future : pending) {
+                FileResult result = waitFor(future);
+                for (String error : result.errors) {
+                    System.err.println(result.source + ": " + error);
+                }
+                if (!result.errors.isEmpty())
+                    failed++;
+            }
+            System.out.println("Compiled " + (pending.size() - failed) + " of " + pending.size() + " files");
+            return failed;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private List<Path> findSources(Path source) throws IOException {
+        if (!Files.isDirectory(source))
+            return List.of(source);
+
+        try (Stream<Path> files = Files.walk(source)) {
+            return files.filter(file -> file.toString().endsWith(SOURCE_EXTENSION))
+                    .filter(Files::isRegularFile)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path targetFor(Path sourceRoot, Path file) {
+        String name = file.getFileName().toString();
+        String cssName = name.endsWith(SOURCE_EXTENSION)
+                ? name.substring(0, name.length() - SOURCE_EXTENSION.length()) + TARGET_EXTENSION
+                : name + TARGET_EXTENSION;
+        if (outputRoot == null)
+            return file.resolveSibling(cssName);
+
+        Path relative = Files.isDirectory(sourceRoot) ? sourceRoot.relativize(file) : file.getFileName();
+        return outputRoot.resolve(relative).resolveSibling(cssName);
+    }
+
+    private FileResult compileFile(Path source, Path target) {
+        FileResult result = new FileResult(source);
+        try {
+            CompilationResult compiled = compiler.compile(source, OPTIONS);
+            if (!compiled.isTransformed()) {
+                result.errors.addAll(compiled.getErrors());
+                return result;
+            }
+            if (target.getParent() != null)
+                Files.createDirectories(target.getParent());
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                compiler.generate(compiled, channel);
+            }
+        } catch (IOException | RuntimeException e) {
+            result.errors.add(e.toString());
+        }
+        return result;
+    }
+
+    private FileResult waitFor(Future<FileResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compiling", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static class FileResult {
+        private final Path source;
+        private final List<String> errors = new ArrayList<>();
+
+        private FileResult(Path source) {
+            this.source = source;
+        }
+    }
+}
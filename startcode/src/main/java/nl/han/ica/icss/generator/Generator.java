@@ -1,32 +1,190 @@
 package nl.han.ica.icss.generator;
 
 import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.compact.CompactAST;
+import nl.han.ica.icss.ast.compact.NodeKind;
 import nl.han.ica.icss.ast.literals.ColorLiteral;
 import nl.han.ica.icss.ast.literals.PercentageLiteral;
 import nl.han.ica.icss.ast.literals.PixelLiteral;
 import nl.han.ica.icss.ast.literals.ScalarLiteral;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
 public class Generator {
 
+    //Between two rules in the CSS
+    private static final String RULE_SEPARATOR = "\n\n\n";
+    //Rules formatted by one task of the parallel generator
+    private static final int RULES_PER_CHUNK = 256;
+
     public String generate(AST ast) {
         return generateStylesheet(ast.root);
     }
 
-    private String generateStylesheet(Stylesheet stylesheet) {
+    /**
+     * @return the CSS of a single evaluated stylerule, ending with a newline
+     */
+    public String generate(Stylerule stylerule) {
         StringBuilder css = new StringBuilder();
+        generateStylerule(css, stylerule);
+        return css.toString();
+    }
 
-        for (ASTNode child : stylesheet.getChildren()) {
-            if (child instanceof Stylerule) {
-                css.append(generateStylerule((Stylerule) child)).append("\n\n");
+    /**
+     * Writes the same CSS as {@link #generate(AST)} to the target, in UTF-8. Chunks of rules
+     * are formatted on the common fork/join pool and written in source order as soon as all
+     * chunks before them are written, so only a few chunks are held in memory at once.
+     */
+    public void generate(AST ast, WritableByteChannel target) throws IOException {
+        List<ASTNode> statements = ast.root.body;
+        int window = 2 * ForkJoinPool.getCommonPoolParallelism() + 1;
+        ArrayDeque<Future<ByteBuffer>> pending = new ArrayDeque<>();
+        //The first rule has no separator before it
+        int firstRule = 0;
+        while (firstRule < statements.size() && !(statements.get(firstRule) instanceof Stylerule)) {
+            firstRule++;
+        }
+        for (int from = firstRule; from < statements.size(); from += RULES_PER_CHUNK) {
+            int start = from;
+            int end = Math.min(statements.size(), from + RULES_PER_CHUNK);
+            boolean first = from == firstRule;
+            pending.add(ForkJoinPool.commonPool().submit(() -> generateChunk(statements, start, end, first)));
+            if (pending.size() >= window)
+                write(pending.poll(), target);
+        }
+        while (!pending.isEmpty()) {
+            write(pending.poll(), target);
+        }
+    }
+
+    private ByteBuffer generateChunk(List<ASTNode> statements, int from, int to, boolean first) {
+        StringBuilder css = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (statements.get(i) instanceof Stylerule) {
+                if (!first)
+                    css.append(RULE_SEPARATOR);
+                generateStylerule(css, (Stylerule) statements.get(i));
+                css.setLength(css.length() - 1);
+                first = false;
             }
         }
+        return StandardCharsets.UTF_8.encode(CharBuffer.wrap(css));
+    }
+
+    private static void write(Future<ByteBuffer> chunk, WritableByteChannel target) throws IOException {
+        ByteBuffer bytes;
+        try {
+            bytes = chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+        while (bytes.hasRemaining()) {
+            target.write(bytes);
+        }
+    }
+
+    /**
+     * @return the same CSS as {@link #generate(AST)} on the evaluated AST the compact AST was made from
+     */
+    public String generate(CompactAST ast) {
+        StringBuilder css = new StringBuilder();
+        CompactAST.Cursor cursor = ast.cursor();
+        if (cursor.firstChild()) {
+            do {
+                if (cursor.kind() == NodeKind.STYLERULE) {
+                    if (css.length() > 0)
+                        css.append(RULE_SEPARATOR);
+                    generateStylerule(css, cursor);
+                    css.setLength(css.length() - 1);
+                }
+            } while (cursor.nextSibling());
+        }
+        return css.toString();
+    }
 
-        return css.toString().trim();
+    private void generateStylerule(StringBuilder css, CompactAST.Cursor cursor) {
+        boolean selectors = true;
+        boolean first = true;
+        if (cursor.firstChild()) {
+            do {
+                NodeKind kind = cursor.kind();
+                if (kind == NodeKind.TAG_SELECTOR || kind == NodeKind.CLASS_SELECTOR || kind == NodeKind.ID_SELECTOR) {
+                    if (!first)
+                        css.append(", ");
+                    css.append(cursor.name());
+                    first = false;
+                    continue;
+                }
+                if (selectors) {
+                    css.append(" {\n");
+                    selectors = false;
+                }
+                if (kind == NodeKind.DECLARATION) {
+                    css.append("  ").append(cursor.name()).append(": ");
+                    if (cursor.firstChild()) {
+                        generateValue(css, cursor);
+                        cursor.parent();
+                    }
+                    css.append(";\n");
+                }
+            } while (cursor.nextSibling());
+            cursor.parent();
+        }
+        if (selectors)
+            css.append(" {\n");
+        css.append("}\n");
+    }
+
+    private void generateValue(StringBuilder css, CompactAST.Cursor cursor) {
+        switch (cursor.kind()) {
+            case PIXEL_LITERAL:
+                css.append(cursor.value()).append("px");
+                break;
+            case PERCENTAGE_LITERAL:
+                css.append(cursor.value()).append('%');
+                break;
+            case SCALAR_LITERAL:
+                css.append(cursor.value());
+                break;
+            case COLOR_LITERAL:
+                ColorLiteral.appendHex(css, cursor.value());
+                break;
+            default:
+        }
     }
 
-    private String generateStylerule(Stylerule stylerule) {
+    private String generateStylesheet(Stylesheet stylesheet) {
         StringBuilder css = new StringBuilder();
 
+        //Rules are separated, instead of followed, by blank lines, so there is nothing to trim
+        for (ASTNode child : stylesheet.body) {
+            if (child instanceof Stylerule) {
+                if (css.length() > 0)
+                    css.append(RULE_SEPARATOR);
+                generateStylerule(css, (Stylerule) child);
+                css.setLength(css.length() - 1);
+            }
+        }
+
+        return css.toString();
+    }
+
+    private void generateStylerule(StringBuilder css, Stylerule stylerule) {
         // selectors
         for (int i = 0; i < stylerule.selectors.size(); i++) {
             css.append(stylerule.selectors.get(i).toString());
@@ -39,28 +197,29 @@ public class Generator {
         // declarations
         for (ASTNode child : stylerule.body) {
             if (child instanceof Declaration) {
-                css.append(generateDeclaration((Declaration) child));
+                generateDeclaration(css, (Declaration) child);
             }
         }
 
         css.append("}\n");
-        return css.toString();
     }
 
-    private String generateDeclaration(Declaration declaration) {
-        return "  " + declaration.property.name + ": " + generateExpression(declaration.expression) + ";\n";
+    private void generateDeclaration(StringBuilder css, Declaration declaration) {
+        css.append("  ").append(declaration.property.name).append(": ");
+        generateExpression(css, declaration.expression);
+        css.append(";\n");
     }
 
-    private String generateExpression(Expression expression) {
+    //Appends straight to the CSS, so no strings are made for the values
+    private void generateExpression(StringBuilder css, Expression expression) {
         if (expression instanceof PixelLiteral) {
-            return ((PixelLiteral) expression).value + "px";
+            css.append(((PixelLiteral) expression).value).append("px");
         } else if (expression instanceof PercentageLiteral) {
-            return ((PercentageLiteral) expression).value + "%";
+            css.append(((PercentageLiteral) expression).value).append('%');
         } else if (expression instanceof ScalarLiteral) {
-            return String.valueOf(((ScalarLiteral) expression).value);
+            css.append(((ScalarLiteral) expression).value);
         } else if (expression instanceof ColorLiteral) {
-            return ((ColorLiteral) expression).value;
+            ((ColorLiteral) expression).appendHex(css);
         }
-        return "";
     }
 }
@@ -0,0 +1,55 @@
+package nl.han.ica.icss.parallel;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Splits a range of indices, like the stylerules of a stylesheet, into consecutive chunks
+ * that are handled in parallel on the common fork/join pool.
+ */
+public final class Chunks {
+
+    private Chunks() {
+    }
+
+    public interface RangeFunction<T> {
+        T apply(int from, int to);
+    }
+
+    public interface RangeConsumer {
+        void accept(int from, int to);
+    }
+
+    /**
+     * @param minimumSize the smallest number of indices worth a task of its own
+     * @return the result for every chunk of [from, to), in the order of the chunks
+     */
+    public static <T> List<T> map(int from, int to, int minimumSize, RangeFunction<T> work) {
+        int size = chunkSize(to - from, minimumSize);
+        return IntStream.range(0, chunkCount(to - from, size))
+                .parallel()
+                .mapToObj(chunk -> work.apply(from + chunk * size, Math.min(to, from + (chunk + 1) * size)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Like {@link #map(int, int, int, RangeFunction)}, for work that has no result.
+     */
+    public static void forEach(int from, int to, int minimumSize, RangeConsumer work) {
+        int size = chunkSize(to - from, minimumSize);
+        IntStream.range(0, chunkCount(to - from, size))
+                .parallel()
+                .forEach(chunk -> work.accept(from + chunk * size, Math.min(to, from + (chunk + 1) * size)));
+    }
+
+    //A few chunks per thread, so a thread that gets small ones can take over more
+    private static int chunkSize(int count, int minimumSize) {
+        return Math.max(minimumSize, count / (4 * ForkJoinPool.getCommonPoolParallelism()) + 1);
+    }
+
+    private static int chunkCount(int count, int size) {
+        return (count + size - 1) / size;
+    }
+}
@@ -0,0 +1,281 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.datastructures.HANStack;
+import nl.han.ica.datastructures.IHANStack;
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.function.Consumer;
+
+/**
+ * Builds the AST while the parser runs, so no parse tree has to be kept.
+ *
+ * Unlike the {@link ASTListener} this listener is attached to the parser as a parse listener.
+ * The parser then only reports the entry of a left-recursive expression after its left
+ * operand is complete, so expressions are built bottom-up on a separate operand stack
+ * from the exit events, which do arrive in post-order. Building stops at the first
+ * syntax error; the parser keeps reporting errors, but the AST stays incomplete.
+ *
+ * With a statement handler the top-level statements are not added to the stylesheet, but
+ * handed over as soon as they are complete, so the AST never holds more than one of them.
+ *
+ * A single statement can be built by calling the parser rule for it instead of stylesheet,
+ * it then ends up in the root of the AST.
+ */
+public class ASTBuilder extends ICSSBaseListener {
+
+	private AST ast;
+
+	//Statements that are being built, like in the ASTListener
+	private IHANStack<ASTNode> currentContainer;
+
+	//Expressions whose parent has not been seen yet
+	private IHANStack<ASTNode> operands;
+
+	//Receives the complete top-level statements, or null to keep them in the AST
+	private final Consumer<ASTNode> statementHandler;
+
+	private boolean recordPositions = false;
+
+	//Reads the literals and names from the tokens, the names are shared through the symbol table
+	private final SymbolTable symbols = new SymbolTable();
+	private final TokenText tokenText = new TokenText(symbols);
+
+	public ASTBuilder() {
+		this(null);
+	}
+
+	/**
+	 * @param statementHandler receives every global variable assignment and stylerule once it has been parsed
+	 */
+	public ASTBuilder(Consumer<ASTNode> statementHandler) {
+		this.statementHandler = statementHandler;
+		reset();
+	}
+
+	/**
+	 * Lets the parser drive this builder and stops it from building a parse tree.
+	 */
+	public void attach(ICSSParser parser) {
+		parser.setBuildParseTree(false);
+		parser.addParseListener(new ParseTreeListener() {
+			@Override
+			public void enterEveryRule(ParserRuleContext ctx) {
+				if (parser.getNumberOfSyntaxErrors() == 0)
+					ctx.enterRule(ASTBuilder.this);
+			}
+
+			//Rules that are unwound by a bail out still report their exit, with the exception set
+			@Override
+			public void exitEveryRule(ParserRuleContext ctx) {
+				if (parser.getNumberOfSyntaxErrors() == 0 && ctx.exception == null)
+					ctx.exitRule(ASTBuilder.this);
+			}
+
+			@Override
+			public void visitTerminal(TerminalNode node) {
+				if (parser.getNumberOfSyntaxErrors() == 0)
+					ASTBuilder.this.visitTerminal(node);
+			}
+
+			@Override
+			public void visitErrorNode(ErrorNode node) {
+			}
+		});
+	}
+
+	public AST getAST() {
+		return ast;
+	}
+
+	/**
+	 * Keeps the source position of every node that is not a literal in the AST.
+	 */
+	public void recordPositions() {
+		recordPositions = true;
+		ast.positions = new SourcePositions();
+	}
+
+	private void reset() {
+		ast = new AST();
+		if (recordPositions)
+			ast.positions = new SourcePositions();
+		currentContainer = new HANStack<>();
+		currentContainer.push(ast.root);
+		operands = new HANStack<>();
+	}
+
+	private void addToContainer(ASTNode node) {
+		ASTNode container = currentContainer.peek();
+		if (statementHandler != null && container instanceof Stylesheet) {
+			statementHandler.accept(node);
+			//Only the statement keeps its names, so the table does not grow with the input
+			symbols.clear();
+		} else
+			container.addChild(node);
+	}
+
+	private void addOperation(Operation operation, ParserRuleContext ctx) {
+		ASTNode rhs = operands.pop();
+		ASTNode lhs = operands.pop();
+		operands.push(located(operation.addChild(lhs).addChild(rhs), ctx));
+	}
+
+	private <T extends ASTNode> T located(T node, ParserRuleContext ctx) {
+		SourceLocations.record(ast, node, ctx);
+		return node;
+	}
+
+	//The parser may enter the stylesheet twice when it falls back from SLL to LL
+	@Override
+	public void enterStylesheet(ICSSParser.StylesheetContext ctx) {
+		reset();
+	}
+
+	@Override
+	public void exitStylesheet(ICSSParser.StylesheetContext ctx) {
+		currentContainer.pop();
+	}
+
+	@Override
+	public void enterStylerule(ICSSParser.StyleruleContext ctx) {
+		currentContainer.push(new Stylerule());
+	}
+
+	@Override
+	public void exitStylerule(ICSSParser.StyleruleContext ctx) {
+		ASTNode stylerule = located(currentContainer.pop(), ctx);
+		addToContainer(stylerule);
+	}
+
+	@Override
+	public void exitTag_selector(ICSSParser.Tag_selectorContext ctx) {
+		addToContainer(located(new TagSelector(tokenText.name(ctx.start)), ctx));
+	}
+
+	@Override
+	public void exitClass_selector(ICSSParser.Class_selectorContext ctx) {
+		addToContainer(located(new ClassSelector(tokenText.name(ctx.start)), ctx));
+	}
+
+	@Override
+	public void exitId_selector(ICSSParser.Id_selectorContext ctx) {
+		addToContainer(located(new IdSelector(tokenText.name(ctx.start)), ctx));
+	}
+
+	@Override
+	public void enterDeclaration(ICSSParser.DeclarationContext ctx) {
+		currentContainer.push(new Declaration());
+	}
+
+	@Override
+	public void exitProperty(ICSSParser.PropertyContext ctx) {
+		addToContainer(located(new PropertyName(tokenText.name(ctx.start)), ctx));
+	}
+
+	@Override
+	public void exitDeclaration(ICSSParser.DeclarationContext ctx) {
+		ASTNode declaration = located(currentContainer.pop().addChild(operands.pop()), ctx);
+		addToContainer(declaration);
+	}
+
+	@Override
+	public void enterVariableAssignment(ICSSParser.VariableAssignmentContext ctx) {
+		currentContainer.push(new VariableAssignment());
+	}
+
+	@Override
+	public void exitVariableAssignment(ICSSParser.VariableAssignmentContext ctx) {
+		ASTNode assignment = located(currentContainer.pop().addChild(operands.pop()), ctx);
+		addToContainer(assignment);
+	}
+
+	@Override
+	public void exitVariableReference(ICSSParser.VariableReferenceContext ctx) {
+		VariableReference reference = located(new VariableReference(tokenText.name(ctx.start)), ctx);
+		//The name of an assignment is not part of an expression
+		if (ctx.getParent() instanceof ICSSParser.VariableAssignmentContext)
+			addToContainer(reference);
+		else
+			operands.push(reference);
+	}
+
+	@Override
+	public void enterIfClause(ICSSParser.IfClauseContext ctx) {
+		currentContainer.push(new IfClause());
+	}
+
+	//The condition is complete once its closing bracket is matched
+	@Override
+	public void visitTerminal(TerminalNode node) {
+		if (node.getSymbol().getType() == ICSSParser.BOX_BRACKET_CLOSE)
+			addToContainer(operands.pop());
+	}
+
+	@Override
+	public void exitIfClause(ICSSParser.IfClauseContext ctx) {
+		ASTNode ifClause = located(currentContainer.pop(), ctx);
+		addToContainer(ifClause);
+	}
+
+	@Override
+	public void enterElseClause(ICSSParser.ElseClauseContext ctx) {
+		currentContainer.push(new ElseClause());
+	}
+
+	@Override
+	public void exitElseClause(ICSSParser.ElseClauseContext ctx) {
+		ASTNode elseClause = located(currentContainer.pop(), ctx);
+		addToContainer(elseClause);
+	}
+
+	@Override
+	public void exitMulExpr(ICSSParser.MulExprContext ctx) {
+		addOperation(new MultiplyOperation(), ctx);
+	}
+
+	@Override
+	public void exitAddExpr(ICSSParser.AddExprContext ctx) {
+		addOperation(new AddOperation(), ctx);
+	}
+
+	@Override
+	public void exitSubExpr(ICSSParser.SubExprContext ctx) {
+		addOperation(new SubtractOperation(), ctx);
+	}
+
+	@Override
+	public void exitPixelLiteral(ICSSParser.PixelLiteralContext ctx) {
+		operands.push(PixelLiteral.valueOf(tokenText.decimal(ctx.start, 2)));
+	}
+
+	@Override
+	public void exitPercentageLiteral(ICSSParser.PercentageLiteralContext ctx) {
+		operands.push(PercentageLiteral.valueOf(tokenText.decimal(ctx.start, 1)));
+	}
+
+	@Override
+	public void exitScalarLiteral(ICSSParser.ScalarLiteralContext ctx) {
+		operands.push(ScalarLiteral.valueOf(tokenText.decimal(ctx.start, 0)));
+	}
+
+	@Override
+	public void exitColorLiteral(ICSSParser.ColorLiteralContext ctx) {
+		operands.push(ColorLiteral.valueOf(tokenText.hex(ctx.start, 1)));
+	}
+
+	@Override
+	public void exitBoolLiteral(ICSSParser.BoolLiteralContext ctx) {
+		operands.push(BoolLiteral.valueOf(ctx.start.getType() == ICSSParser.TRUE));
+	}
+}
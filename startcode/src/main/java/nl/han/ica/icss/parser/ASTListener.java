@@ -27,6 +27,9 @@ public class ASTListener extends ICSSBaseListener {
 	//Use this to keep track of the parent nodes when recursively traversing the ast
 	private IHANStack<ASTNode> currentContainer;
 
+	//Reads the literals and names from the tokens, the names are shared through the symbol table
+	private final TokenText tokenText = new TokenText(new SymbolTable());
+
 	public ASTListener() {
 		ast = new AST();
 		currentContainer = new HANStack<>();
@@ -35,6 +38,13 @@ public class ASTListener extends ICSSBaseListener {
         return ast;
     }
 
+	/**
+	 * Keeps the source position of every node that is not a literal in the AST.
+	 */
+	public void recordPositions() {
+		ast.positions = new SourcePositions();
+	}
+
 	@Override
 	public void enterStylesheet(ICSSParser.StylesheetContext ctx) {
 		Stylesheet stylesheet = new Stylesheet();
@@ -56,42 +66,46 @@ public class ASTListener extends ICSSBaseListener {
 	@Override
 	public void exitStylerule(ICSSParser.StyleruleContext ctx) {
 		Stylerule stylerule = (Stylerule) currentContainer.pop();
+		SourceLocations.record(ast, stylerule, ctx);
 		currentContainer.peek().addChild(stylerule);
 	}
 
 	@Override
 	public void enterId_selector(ICSSParser.Id_selectorContext ctx) {
-		IdSelector selector = new IdSelector(ctx.getText());
+		IdSelector selector = new IdSelector(tokenText.name(ctx.start));
 		currentContainer.push(selector);
 	}
 
 	@Override
 	public void exitId_selector(ICSSParser.Id_selectorContext ctx) {
 		IdSelector selector = (IdSelector)currentContainer.pop();
+		SourceLocations.record(ast, selector, ctx);
 		currentContainer.peek().addChild(selector);
 	}
 
 	@Override
 	public void enterTag_selector(ICSSParser.Tag_selectorContext ctx) {
-		TagSelector selector = new TagSelector(ctx.getText());
+		TagSelector selector = new TagSelector(tokenText.name(ctx.start));
 		currentContainer.push(selector);
 	}
 
 	@Override
 	public void exitTag_selector(ICSSParser.Tag_selectorContext ctx) {
 		TagSelector selector = (TagSelector)currentContainer.pop();
+		SourceLocations.record(ast, selector, ctx);
 		currentContainer.peek().addChild(selector);
 	}
 
 	@Override
 	public void enterClass_selector(ICSSParser.Class_selectorContext ctx) {
-		ClassSelector selector = new ClassSelector(ctx.getText());
+		ClassSelector selector = new ClassSelector(tokenText.name(ctx.start));
 		currentContainer.push(selector);
 	}
 
 	@Override
 	public void exitClass_selector(ICSSParser.Class_selectorContext ctx) {
 		ClassSelector selector = (ClassSelector) currentContainer.pop();
+		SourceLocations.record(ast, selector, ctx);
 		currentContainer.peek().addChild(selector);
 	}
 
@@ -104,18 +118,20 @@ public class ASTListener extends ICSSBaseListener {
 	@Override
 	public void exitDeclaration(ICSSParser.DeclarationContext ctx) {
 		Declaration declaration = (Declaration)currentContainer.pop();
+		SourceLocations.record(ast, declaration, ctx);
 		currentContainer.peek().addChild(declaration);
 	}
 
 	@Override
 	public void enterProperty(ICSSParser.PropertyContext ctx) {
-		PropertyName property = new PropertyName(ctx.getText());
+		PropertyName property = new PropertyName(tokenText.name(ctx.start));
 		currentContainer.push(property);
 	}
 
 	@Override
 	public void exitProperty(ICSSParser.PropertyContext ctx) {
 		PropertyName property = (PropertyName)currentContainer.pop();
+		SourceLocations.record(ast, property, ctx);
 		currentContainer.peek().addChild(property);
 	}
 
@@ -128,6 +144,7 @@ public class ASTListener extends ICSSBaseListener {
 	@Override
 	public void exitIfClause(ICSSParser.IfClauseContext ctx) {
 		IfClause ifc = (IfClause)currentContainer.pop();
+		SourceLocations.record(ast, ifc, ctx);
 		currentContainer.peek().addChild(ifc);
 	}
 
@@ -140,6 +157,7 @@ public class ASTListener extends ICSSBaseListener {
 	@Override
 	public void exitElseClause(ICSSParser.ElseClauseContext ctx) {
 		ElseClause elsec = (ElseClause)currentContainer.pop();
+		SourceLocations.record(ast, elsec, ctx);
 		currentContainer.peek().addChild(elsec);
 	}
 
@@ -152,6 +170,7 @@ public class ASTListener extends ICSSBaseListener {
 	@Override
 	public void exitMulExpr(ICSSParser.MulExprContext ctx) {
 		MultiplyOperation mul = (MultiplyOperation) currentContainer.pop();
+		SourceLocations.record(ast, mul, ctx);
 		currentContainer.peek().addChild(mul);
 	}
 
@@ -164,6 +183,7 @@ public class ASTListener extends ICSSBaseListener {
 	@Override
 	public void exitAddExpr(ICSSParser.AddExprContext ctx) {
 		AddOperation add = (AddOperation) currentContainer.pop();
+		SourceLocations.record(ast, add, ctx);
 		currentContainer.peek().addChild(add);
 	}
 
@@ -176,12 +196,13 @@ public class ASTListener extends ICSSBaseListener {
 	@Override
 	public void exitSubExpr(ICSSParser.SubExprContext ctx) {
 		SubtractOperation sub = (SubtractOperation) currentContainer.pop();
+		SourceLocations.record(ast, sub, ctx);
 		currentContainer.peek().addChild(sub);
 	}
 
 	@Override
 	public void enterPixelLiteral(ICSSParser.PixelLiteralContext ctx) {
-		PixelLiteral px = new PixelLiteral(ctx.getText());
+		PixelLiteral px = PixelLiteral.valueOf(tokenText.decimal(ctx.start, 2));
 		currentContainer.push(px);
 	}
 
@@ -193,7 +214,7 @@ public class ASTListener extends ICSSBaseListener {
 
 	@Override
 	public void enterPercentageLiteral(ICSSParser.PercentageLiteralContext ctx) {
-		PercentageLiteral perc = new PercentageLiteral(ctx.getText());
+		PercentageLiteral perc = PercentageLiteral.valueOf(tokenText.decimal(ctx.start, 1));
 		currentContainer.push(perc);
 	}
 
@@ -205,7 +226,7 @@ public class ASTListener extends ICSSBaseListener {
 
 	@Override
 	public void enterScalarLiteral(ICSSParser.ScalarLiteralContext ctx) {
-		ScalarLiteral scalar = new ScalarLiteral(ctx.getText());
+		ScalarLiteral scalar = ScalarLiteral.valueOf(tokenText.decimal(ctx.start, 0));
 		currentContainer.push(scalar);
 	}
 
@@ -217,7 +238,7 @@ public class ASTListener extends ICSSBaseListener {
 
 	@Override
 	public void enterColorLiteral(ICSSParser.ColorLiteralContext ctx) {
-		ColorLiteral color = new ColorLiteral(ctx.getText());
+		ColorLiteral color = ColorLiteral.valueOf(tokenText.hex(ctx.start, 1));
 		currentContainer.push(color);
 	}
 
@@ -229,7 +250,7 @@ public class ASTListener extends ICSSBaseListener {
 
 	@Override
 	public void enterBoolLiteral(ICSSParser.BoolLiteralContext ctx) {
-		BoolLiteral bool = new BoolLiteral(ctx.getText());
+		BoolLiteral bool = BoolLiteral.valueOf(ctx.start.getType() == ICSSParser.TRUE);
 		currentContainer.push(bool);
 	}
 
@@ -248,18 +269,20 @@ public class ASTListener extends ICSSBaseListener {
 	@Override
 	public void exitVariableAssignment(ICSSParser.VariableAssignmentContext ctx) {
 		VariableAssignment var = (VariableAssignment) currentContainer.pop();
+		SourceLocations.record(ast, var, ctx);
 		currentContainer.peek().addChild(var);
 	}
 
 	@Override
 	public void enterVariableReference(ICSSParser.VariableReferenceContext ctx) {
-		VariableReference var = new VariableReference(ctx.getText());
+		VariableReference var = new VariableReference(tokenText.name(ctx.start));
 		currentContainer.push(var);
 	}
 
 	@Override
 	public void exitVariableReference(ICSSParser.VariableReferenceContext ctx) {
 		VariableReference var = (VariableReference) currentContainer.pop();
+		SourceLocations.record(ast, var, ctx);
 		currentContainer.peek().addChild(var);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lets the lexer read straight from a buffer of bytes, for example a memory-mapped file,
+ * without decoding it into a String first. Every byte is one character, which is right for
+ * ICSS: all of its tokens are ASCII. Any other byte is not part of a token and is reported
+ * by the lexer as a single unknown character.
+ *
+ * Only the text of the tokens is copied out of the buffer, when the parser asks for it.
+ */
+public class ByteBufferCharStream implements CharStream {
+
+    private final ByteBuffer bytes;
+    private final int size;
+    private final String sourceName;
+    private int position = 0;
+
+    /**
+     * @param bytes the remaining bytes are the source, the buffer itself is not changed
+     */
+    public ByteBufferCharStream(ByteBuffer bytes, String sourceName) {
+        this.bytes = bytes.slice();
+        this.size = this.bytes.remaining();
+        this.sourceName = sourceName;
+    }
+
+    public ByteBufferCharStream(ByteBuffer bytes) {
+        this(bytes, IntStream.UNKNOWN_SOURCE_NAME);
+    }
+
+    //For the HandwrittenLexer, which reads the bytes without going through LA
+    ByteBuffer getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = Math.max(0, interval.a);
+        int stop = Math.min(interval.b, size - 1);
+        if (stop < start)
+            return "";
+        byte[] text = new byte[stop - start + 1];
+        bytes.get(start, text);
+        return new String(text, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public void consume() {
+        if (position >= size)
+            throw new IllegalStateException("cannot consume EOF");
+        position++;
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i == 0)
+            return 0;
+        //LA(-1) is the character before the current one
+        int index = i > 0 ? position + i - 1 : position + i;
+        if (index < 0 || index >= size)
+            return IntStream.EOF;
+        return bytes.get(index) & 0xff;
+    }
+
+    //The whole buffer stays available, so marks are free
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return position;
+    }
+
+    @Override
+    public void seek(int index) {
+        position = Math.min(index, size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    @Override
+    public String toString() {
+        return getText(Interval.of(0, size - 1));
+    }
+}
@@ -0,0 +1,303 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.ConsoleErrorListener;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Pair;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A lexer for the tokens of ICSS.g4 that is written out by hand instead of simulating the
+ * ATN like the generated {@link ICSSLexer}. It produces exactly the same tokens, with the
+ * same positions, and reports the same errors: ANTLR takes the longest match, the first rule
+ * wins a tie, and on an unknown character the text up to and including the character where
+ * every rule failed is reported and skipped.
+ *
+ * The characters are read straight from the bytes of a {@link ByteBufferCharStream}; any
+ * other stream is read into a String once. The tokens get their text from the stream only
+ * when it is asked for, so the only thing allocated per token is the token itself. Tokens
+ * cannot be reused: the token stream and the parse tree keep them.
+ *
+ * If the lexer rules in the grammar change, this class has to change with them.
+ */
+public class HandwrittenLexer implements TokenSource {
+
+    private final CharStream input;
+    private final Pair<TokenSource, CharStream> source;
+    private TokenFactory<?> factory = CommonTokenFactory.DEFAULT;
+    private ANTLRErrorListener errorListener = ConsoleErrorListener.INSTANCE;
+
+    //Exactly one of these holds the characters, indexed like the input stream
+    private final ByteBuffer bytes;
+    private final String text;
+    private final int[] codePoints;
+    private final int size;
+
+    private int index = 0;
+    private int line = 1;
+    private int column = 0;
+
+    public HandwrittenLexer(CharStream input) {
+        this.input = input;
+        this.source = new Pair<>(this, input);
+        size = input.size();
+        if (input instanceof ByteBufferCharStream) {
+            bytes = ((ByteBufferCharStream) input).getBytes();
+            text = null;
+            codePoints = null;
+        } else {
+            bytes = null;
+            String all = input.getText(Interval.of(0, size - 1));
+            //The stream counts code points, a String counts chars
+            if (all.length() == size) {
+                text = all;
+                codePoints = null;
+            } else {
+                text = null;
+                codePoints = all.codePoints().toArray();
+            }
+        }
+    }
+
+    /**
+     * Replaces the listener that receives the token recognition errors, by default they are
+     * printed like the generated lexer does. The listener is not given a recognizer.
+     */
+    public void setErrorListener(ANTLRErrorListener errorListener) {
+        this.errorListener = errorListener;
+    }
+
+    @Override
+    public Token nextToken() {
+        while (true) {
+            int start = index;
+            int c = charAt(start);
+            if (c == IntStream.EOF)
+                return factory.create(source, Token.EOF, null, Token.DEFAULT_CHANNEL, start, start - 1, line, column);
+
+            int type;
+            int end = start + 1;
+            switch (c) {
+                case ' ':
+                case '\t':
+                case '\r':
+                case '\n':
+                    while (isWhitespace(charAt(end))) {
+                        end++;
+                    }
+                    skip(start, end);
+                    continue;
+                case '[':
+                    type = ICSSLexer.BOX_BRACKET_OPEN;
+                    break;
+                case ']':
+                    type = ICSSLexer.BOX_BRACKET_CLOSE;
+                    break;
+                case '{':
+                    type = ICSSLexer.OPEN_BRACE;
+                    break;
+                case '}':
+                    type = ICSSLexer.CLOSE_BRACE;
+                    break;
+                case ';':
+                    type = ICSSLexer.SEMICOLON;
+                    break;
+                case '+':
+                    type = ICSSLexer.PLUS;
+                    break;
+                case '-':
+                    type = ICSSLexer.MIN;
+                    break;
+                case '*':
+                    type = ICSSLexer.MUL;
+                    break;
+                case ':':
+                    if (charAt(end) == '=') {
+                        type = ICSSLexer.ASSIGNMENT_OPERATOR;
+                        end++;
+                    } else {
+                        type = ICSSLexer.COLON;
+                    }
+                    break;
+                case '#':
+                    end = skipLowerIdent(end);
+                    if (end == start + 1) {
+                        recognitionError(start, end);
+                        continue;
+                    }
+                    //Six hex digits are a color, anything longer or with other letters an id
+                    type = end == start + 7 && isHex(start + 1, end) ? ICSSLexer.COLOR : ICSSLexer.ID_IDENT;
+                    break;
+                case '.':
+                    end = skipLowerIdent(end);
+                    if (end == start + 1) {
+                        recognitionError(start, end);
+                        continue;
+                    }
+                    type = ICSSLexer.CLASS_IDENT;
+                    break;
+                default:
+                    if (isDigit(c)) {
+                        while (isDigit(charAt(end))) {
+                            end++;
+                        }
+                        if (charAt(end) == 'p' && charAt(end + 1) == 'x') {
+                            type = ICSSLexer.PIXELSIZE;
+                            end += 2;
+                        } else if (charAt(end) == '%') {
+                            type = ICSSLexer.PERCENTAGE;
+                            end++;
+                        } else {
+                            type = ICSSLexer.SCALAR;
+                        }
+                    } else if (c >= 'a' && c <= 'z') {
+                        end = skipLowerIdent(end);
+                        type = lowerKeyword(start, end);
+                    } else if (c >= 'A' && c <= 'Z') {
+                        while (isCapitalIdentPart(charAt(end))) {
+                            end++;
+                        }
+                        type = capitalKeyword(start, end);
+                    } else {
+                        recognitionError(start, start);
+                        continue;
+                    }
+            }
+            //No token spans a line
+            Token token = factory.create(source, type, null, Token.DEFAULT_CHANNEL, start, end - 1, line, column);
+            column += end - start;
+            index = end;
+            return token;
+        }
+    }
+
+    private int charAt(int i) {
+        if (i >= size)
+            return IntStream.EOF;
+        if (bytes != null)
+            return bytes.get(i) & 0xff;
+        if (text != null)
+            return text.charAt(i);
+        return codePoints[i];
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLowerIdentPart(int c) {
+        return (c >= 'a' && c <= 'z') || isDigit(c) || c == '-';
+    }
+
+    private static boolean isCapitalIdentPart(int c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || isDigit(c) || c == '_';
+    }
+
+    private int skipLowerIdent(int i) {
+        while (isLowerIdentPart(charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private boolean isHex(int from, int to) {
+        for (int i = from; i < to; i++) {
+            int c = charAt(i);
+            if (!isDigit(c) && (c < 'a' || c > 'f'))
+                return false;
+        }
+        return true;
+    }
+
+    //The keywords are listed before LOWER_IDENT in the grammar, so they win when the lengths are equal
+    private int lowerKeyword(int start, int end) {
+        if (end - start == 2 && charAt(start) == 'i' && charAt(start + 1) == 'f')
+            return ICSSLexer.IF;
+        if (end - start == 4 && charAt(start) == 'e' && charAt(start + 1) == 'l' && charAt(start + 2) == 's' && charAt(start + 3) == 'e')
+            return ICSSLexer.ELSE;
+        return ICSSLexer.LOWER_IDENT;
+    }
+
+    private int capitalKeyword(int start, int end) {
+        if (end - start == 4 && charAt(start) == 'T' && charAt(start + 1) == 'R' && charAt(start + 2) == 'U' && charAt(start + 3) == 'E')
+            return ICSSLexer.TRUE;
+        if (end - start == 5 && charAt(start) == 'F' && charAt(start + 1) == 'A' && charAt(start + 2) == 'L'
+                && charAt(start + 3) == 'S' && charAt(start + 4) == 'E')
+            return ICSSLexer.FALSE;
+        return ICSSLexer.CAPITAL_IDENT;
+    }
+
+    /*
+     Like the generated lexer: the text from the start of the token up to and including the
+     character where no rule could continue is reported, and all of it is skipped.
+     */
+    private void recognitionError(int start, int failed) {
+        String text = input.getText(Interval.of(start, failed));
+        StringBuilder display = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            if (c == '\n')
+                display.append("\\n");
+            else if (c == '\t')
+                display.append("\\t");
+            else if (c == '\r')
+                display.append("\\r");
+            else
+                display.append(c);
+        }
+        errorListener.syntaxError(null, null, line, column, "token recognition error at: '" + display + "'", null);
+        skip(start, Math.min(failed + 1, size));
+    }
+
+    private void skip(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (charAt(i) == '\n') {
+                line++;
+                column = 0;
+            } else {
+                column++;
+            }
+        }
+        index = end;
+    }
+
+    @Override
+    public int getLine() {
+        return line;
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return column;
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return input;
+    }
+
+    @Override
+    public String getSourceName() {
+        return input.getSourceName();
+    }
+
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return factory;
+    }
+}
@@ -0,0 +1,53 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+/**
+ * How the parse stage uses ANTLR's adaptive prediction.
+ */
+public enum ParseMode {
+
+    /**
+     * Full LL prediction with error recovery, ANTLR's default.
+     */
+    LL,
+
+    /**
+     * First parse with the faster SLL prediction and bail out on the first error. Only when
+     * that fails the input is parsed again with full LL prediction and error recovery, which
+     * also produces the error messages. SLL is enough for almost every valid input.
+     */
+    SLL_THEN_LL;
+
+    /**
+     * Parses a stylesheet from the parser's token stream
+     * @param parser a fresh parser, positioned at the start of its token stream
+     * @param errorListener receives the syntax errors of the (final) LL parse
+     */
+    public ICSSParser.StylesheetContext parseStylesheet(ICSSParser parser, ANTLRErrorListener errorListener) {
+        parser.removeErrorListeners();
+        if (this == SLL_THEN_LL) {
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            parser.setErrorHandler(new BailErrorStrategy());
+            try {
+                ICSSParser.StylesheetContext stylesheet = parser.stylesheet();
+                //The grammar does not end in EOF, so bailing out does not catch trailing tokens
+                if (parser.getTokenStream().LA(1) == Token.EOF)
+                    return stylesheet;
+            } catch (ParseCancellationException e) {
+                //Fall through to the full LL parse
+            }
+            //Rewinds the token stream, tokens are not lexed twice
+            parser.reset();
+            parser.setErrorHandler(new DefaultErrorStrategy());
+        }
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        parser.addErrorListener(errorListener);
+        return parser.stylesheet();
+    }
+}
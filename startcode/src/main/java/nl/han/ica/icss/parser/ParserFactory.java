@@ -0,0 +1,153 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.dfa.DFA;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Creates lexers and parsers that share a prediction cache owned by this factory instead of
+ * the static, ever growing cache of the generated classes.
+ *
+ * The cache can be warmed up by parsing the bundled example files, and it is dropped and
+ * warmed up again once it holds more than the configured number of DFA states and
+ * prediction contexts. Lexers and parsers that are still running keep using the cache
+ * they were created with. All methods are thread-safe.
+ */
+public class ParserFactory {
+
+    public static final int DEFAULT_MAX_CACHE_SIZE = 100_000;
+
+    private static final List<String> WARM_UP_RESOURCES = Arrays.asList("level0.icss", "level1.icss", "level2.icss", "level3.icss");
+
+    private final int maxCacheSize;
+    private final AtomicReference<PredictionCache> cache = new AtomicReference<>(new PredictionCache());
+
+    public ParserFactory() {
+        this(DEFAULT_MAX_CACHE_SIZE);
+    }
+
+    /**
+     * @param maxCacheSize the number of DFA states plus prediction contexts after which the cache is rebuilt
+     */
+    public ParserFactory(int maxCacheSize) {
+        this.maxCacheSize = maxCacheSize;
+    }
+
+    public ICSSLexer createLexer(CharStream input) {
+        PredictionCache current = cache.get();
+        ICSSLexer lexer = new ICSSLexer(input);
+        lexer.setInterpreter(new LexerATNSimulator(lexer, ICSSLexer._ATN, current.lexerDFA, current.lexerContexts));
+        return lexer;
+    }
+
+    public ICSSParser createParser(TokenStream tokens) {
+        PredictionCache current = cache.get();
+        ICSSParser parser = new ICSSParser(tokens);
+        parser.setInterpreter(new ParserATNSimulator(parser, ICSSParser._ATN, current.parserDFA, current.parserContexts));
+        return parser;
+    }
+
+    /**
+     * Fills the cache by parsing the bundled example files in every parse mode.
+     */
+    public void warmUp() {
+        for (String resource : WARM_UP_RESOURCES) {
+            try (InputStream inputStream = ParserFactory.class.getClassLoader().getResourceAsStream(resource)) {
+                if (inputStream != null)
+                    warmUp(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                //A missing example only means a colder cache
+            }
+        }
+    }
+
+    public void warmUp(String source) {
+        for (ParseMode mode : ParseMode.values()) {
+            ICSSLexer lexer = createLexer(CharStreams.fromString(source));
+            lexer.removeErrorListeners();
+            ICSSParser parser = createParser(new CommonTokenStream(lexer));
+            mode.parseStylesheet(parser, new BaseErrorListener());
+        }
+    }
+
+    /**
+     * @return the number of DFA states in the lexer and parser prediction cache
+     */
+    public int getDfaStateCount() {
+        return cache.get().dfaStateCount();
+    }
+
+    /**
+     * @return the number of shared prediction contexts in the cache
+     */
+    public int getContextCacheSize() {
+        PredictionCache current = cache.get();
+        return current.lexerContexts.size() + current.parserContexts.size();
+    }
+
+    /**
+     * Drops the cache. Lexers and parsers created from now on start with an empty one.
+     */
+    public void clear() {
+        cache.set(new PredictionCache());
+    }
+
+    /**
+     * Drops and warms up the cache again when it has grown past the configured size.
+     * When several threads see the cache is too large only one of them rebuilds it.
+     * @return true when the cache was rebuilt
+     */
+    public boolean enforceLimit() {
+        PredictionCache current = cache.get();
+        if (current.dfaStateCount() + current.lexerContexts.size() + current.parserContexts.size() <= maxCacheSize)
+            return false;
+        if (!cache.compareAndSet(current, new PredictionCache()))
+            return false;
+        warmUp();
+        return true;
+    }
+
+    /*
+     One generation of the prediction cache, the same structures the generated
+     lexer and parser keep in static fields.
+     */
+    private static class PredictionCache {
+        private final DFA[] lexerDFA = createDFA(ICSSLexer._ATN);
+        private final DFA[] parserDFA = createDFA(ICSSParser._ATN);
+        private final PredictionContextCache lexerContexts = new PredictionContextCache();
+        private final PredictionContextCache parserContexts = new PredictionContextCache();
+
+        private static DFA[] createDFA(ATN atn) {
+            DFA[] decisionToDFA = new DFA[atn.getNumberOfDecisions()];
+            for (int i = 0; i < decisionToDFA.length; i++) {
+                decisionToDFA[i] = new DFA(atn.getDecisionState(i), i);
+            }
+            return decisionToDFA;
+        }
+
+        private int dfaStateCount() {
+            int count = 0;
+            for (DFA dfa : lexerDFA) {
+                count += dfa.states.size();
+            }
+            for (DFA dfa : parserDFA) {
+                count += dfa.states.size();
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+
+/*
+ Records the position of the tokens of a rule for the node built from it, when the AST keeps positions.
+ */
+final class SourceLocations {
+
+    private SourceLocations() {
+    }
+
+    static void record(AST ast, ASTNode node, ParserRuleContext ctx) {
+        if (ast.positions == null)
+            return;
+        Token start = ctx.start;
+        Token stop = ctx.stop;
+        int length = stop == null || stop.getStopIndex() < start.getStartIndex()
+                ? 0 : stop.getStopIndex() + 1 - start.getStartIndex();
+        ast.positions.add(node, start.getLine(), start.getCharPositionInLine() + 1, start.getStartIndex(), length);
+    }
+}
@@ -0,0 +1,100 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.SymbolTable;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CodePointCharStream;
+import org.antlr.v4.runtime.Token;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/*
+ Reads the values of tokens from the characters of the input stream, without the String that
+ Token.getText() creates. The characters of one token at a time are copied into a buffer that
+ is reused, and the numbers are parsed and the names looked up from there.
+
+ A stream that can be read at any index is read directly. Reading a CodePointCharStream moves
+ it, so its index is put back afterwards, the lexer may still be using it. Other streams, like
+ an unbuffered one that no longer has the characters, fall back to the text of the token.
+ */
+final class TokenText implements CharSequence {
+
+    private final SymbolTable symbols;
+    private char[] chars = new char[32];
+    private int length = 0;
+
+    TokenText(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    /**
+     * @return the decimal number at the start of the token, before a unit of suffixLength characters
+     */
+    int decimal(Token token, int suffixLength) {
+        load(token);
+        return Integer.parseInt(this, 0, length - suffixLength, 10);
+    }
+
+    /**
+     * @return the hexadecimal number after the first prefixLength characters of the token
+     */
+    int hex(Token token, int prefixLength) {
+        load(token);
+        return Integer.parseInt(this, prefixLength, length, 16);
+    }
+
+    /**
+     * @return the text of the token, shared with every other token with the same text
+     */
+    String name(Token token) {
+        load(token);
+        return symbols.intern(this);
+    }
+
+    private void load(Token token) {
+        CharStream input = token.getInputStream();
+        int start = token.getStartIndex();
+        length = token.getStopIndex() + 1 - start;
+        if (chars.length < length)
+            chars = Arrays.copyOf(chars, Math.max(length, 2 * chars.length));
+        if (input instanceof ByteBufferCharStream) {
+            ByteBuffer bytes = ((ByteBufferCharStream) input).getBytes();
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) (bytes.get(start + i) & 0xff);
+            }
+        } else if (input instanceof CodePointCharStream) {
+            int index = input.index();
+            input.seek(start);
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) input.LA(i + 1);
+            }
+            input.seek(index);
+        } else {
+            String text = token.getText();
+            length = text.length();
+            if (chars.length < length)
+                chars = Arrays.copyOf(chars, length);
+            text.getChars(0, length, chars, 0);
+        }
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new String(chars, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
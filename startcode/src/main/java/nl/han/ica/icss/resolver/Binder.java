@@ -0,0 +1,234 @@
+package nl.han.ica.icss.resolver;
+
+import nl.han.ica.icss.ast.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Gives every variable a slot, so the Checker and the Evaluator can keep variables in a
+ * plain array instead of a chain of maps per scope. Every assignment gets a new slot and
+ * every reference gets the slot of the assignment it reads, with the same scoping as the
+ * {@link Resolver}. Slots are handed out like a stack: when a scope is closed its slots are
+ * used again for the next scope, so the number of slots is the largest number of variables
+ * that are visible at the same time, and the globals always have the lowest slots.
+ *
+ * A pass over the AST can also bind while it goes, by opening and closing the scopes and
+ * binding every reference and assignment in source order, like the Checker does.
+ *
+ * Names are looked up by their symbol, see {@link Symbols}, in a small hash table that only
+ * holds the symbols this binder has bound, however many symbols there are.
+ */
+public class Binder {
+
+    //The slot every bound symbol is at, -1 when it is not visible (any more). Open addressing, at most half full
+    private int[] visibleSymbols;
+    private int[] visibleSlots;
+    private int visibleCount = 0;
+    //Symbols bound in the open scopes, with the slot they were bound to before, to undo them when a scope closes
+    private int[] boundSymbols;
+    private int[] shadowedSlots;
+    private int boundCount = 0;
+    private int nextSlot = 0;
+    private int slotCount = 0;
+    //Where every open scope starts in boundNames and in the slots
+    private int[] scopeNames = new int[8];
+    private int[] scopeSlots = new int[8];
+    private int depth = 0;
+
+    public Binder() {
+        visibleSymbols = new int[16];
+        Arrays.fill(visibleSymbols, -1);
+        visibleSlots = new int[16];
+        boundSymbols = new int[16];
+        shadowedSlots = new int[16];
+    }
+
+    private Binder(Binder original) {
+        visibleSymbols = original.visibleSymbols.clone();
+        visibleSlots = original.visibleSlots.clone();
+        visibleCount = original.visibleCount;
+        boundSymbols = original.boundSymbols.clone();
+        shadowedSlots = original.shadowedSlots.clone();
+        boundCount = original.boundCount;
+        nextSlot = original.nextSlot;
+        slotCount = original.slotCount;
+        scopeNames = original.scopeNames.clone();
+        scopeSlots = original.scopeSlots.clone();
+        depth = original.depth;
+    }
+
+    /**
+     * @return a binder in the same state that continues on its own, for example to bind
+     * stylerules on several threads after the globals have been bound
+     */
+    public Binder copy() {
+        return new Binder(this);
+    }
+
+    /**
+     * Binds all variables of the AST and records the number of slots in it
+     * @return the number of slots the variables of the AST need
+     */
+    public int bind(AST ast) {
+        for (ASTNode statement : ast.root.body) {
+            bindStatement(statement);
+        }
+        ast.variableSlots = slotCount;
+        return slotCount;
+    }
+
+    private void bindStatement(ASTNode statement) {
+        if (statement instanceof VariableAssignment) {
+            bindVariableAssignment((VariableAssignment) statement);
+        } else if (statement instanceof Stylerule) {
+            bindBody(((Stylerule) statement).body);
+        }
+    }
+
+    /**
+     * Binds a global variable that is not part of the AST
+     * @return its slot
+     */
+    public int declareGlobal(String name) {
+        return bindSymbol(Symbols.of(name));
+    }
+
+    /**
+     * @return the number of slots given out so far
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public void openScope() {
+        if (depth == scopeNames.length) {
+            scopeNames = Arrays.copyOf(scopeNames, 2 * depth);
+            scopeSlots = Arrays.copyOf(scopeSlots, 2 * depth);
+        }
+        scopeNames[depth] = boundCount;
+        scopeSlots[depth] = nextSlot;
+        depth++;
+    }
+
+    /**
+     * Closes the innermost scope, the variables it hides become visible again.
+     */
+    public void closeScope() {
+        depth--;
+        while (boundCount > scopeNames[depth]) {
+            boundCount--;
+            visibleSlots[indexOf(boundSymbols[boundCount])] = shadowedSlots[boundCount];
+        }
+        nextSlot = scopeSlots[depth];
+    }
+
+    /**
+     * @return the slot of the variable the reference reads, -1 when it is not defined
+     */
+    public int bindReference(VariableReference reference) {
+        reference.slot = lookup(reference.symbol);
+        return reference.slot;
+    }
+
+    /**
+     * Gives the assigned variable a new slot. The references in its expression have to be bound first.
+     * @return the slot of the variable
+     */
+    public int bindAssignment(VariableAssignment assignment) {
+        assignment.previousSlot = lookup(assignment.name.symbol);
+        assignment.name.slot = bindSymbol(assignment.name.symbol);
+        return assignment.name.slot;
+    }
+
+    private void bindBody(List<ASTNode> body) {
+        openScope();
+        for (ASTNode child : body) {
+            if (child instanceof VariableAssignment) {
+                bindVariableAssignment((VariableAssignment) child);
+            } else if (child instanceof Declaration) {
+                bindExpression(((Declaration) child).expression);
+            } else if (child instanceof IfClause) {
+                bindIfClause((IfClause) child);
+            }
+        }
+        closeScope();
+    }
+
+    private void bindIfClause(IfClause ifClause) {
+        bindExpression(ifClause.conditionalExpression);
+        bindBody(ifClause.body);
+        if (ifClause.elseClause != null)
+            bindBody(ifClause.elseClause.body);
+    }
+
+    //The expression is bound before the name, X := X + 1px uses the previous X
+    private void bindVariableAssignment(VariableAssignment assignment) {
+        bindExpression(assignment.expression);
+        bindAssignment(assignment);
+    }
+
+    //The position of the symbol in the hash table, or of the empty entry where it would go
+    private int indexOf(int symbol) {
+        int hash = symbol * 0x9E3779B9;
+        int mask = visibleSymbols.length - 1;
+        int i = (hash ^ (hash >>> 16)) & mask;
+        while (visibleSymbols[i] != symbol && visibleSymbols[i] != -1) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private int lookup(int symbol) {
+        int i = indexOf(symbol);
+        return visibleSymbols[i] == symbol ? visibleSlots[i] : -1;
+    }
+
+    private int bindSymbol(int symbol) {
+        int slot = nextSlot++;
+        slotCount = Math.max(slotCount, nextSlot);
+        int i = indexOf(symbol);
+        if (visibleSymbols[i] != symbol) {
+            if (2 * (visibleCount + 1) > visibleSymbols.length) {
+                growVisible();
+                i = indexOf(symbol);
+            }
+            visibleSymbols[i] = symbol;
+            visibleSlots[i] = -1;
+            visibleCount++;
+        }
+        if (boundCount == boundSymbols.length) {
+            boundSymbols = Arrays.copyOf(boundSymbols, 2 * boundCount);
+            shadowedSlots = Arrays.copyOf(shadowedSlots, 2 * boundCount);
+        }
+        boundSymbols[boundCount] = symbol;
+        shadowedSlots[boundCount] = visibleSlots[i];
+        boundCount++;
+        visibleSlots[i] = slot;
+        return slot;
+    }
+
+    private void growVisible() {
+        int[] symbols = visibleSymbols;
+        int[] slots = visibleSlots;
+        visibleSymbols = new int[2 * symbols.length];
+        Arrays.fill(visibleSymbols, -1);
+        visibleSlots = new int[2 * symbols.length];
+        for (int j = 0; j < symbols.length; j++) {
+            if (symbols[j] != -1) {
+                int i = indexOf(symbols[j]);
+                visibleSymbols[i] = symbols[j];
+                visibleSlots[i] = slots[j];
+            }
+        }
+    }
+
+    private void bindExpression(Expression expression) {
+        if (expression instanceof VariableReference) {
+            bindReference((VariableReference) expression);
+        } else if (expression instanceof Operation) {
+            bindExpression(((Operation) expression).lhs);
+            bindExpression(((Operation) expression).rhs);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package nl.han.ica.icss.resolver;
+
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.VariableAssignment;
+import nl.han.ica.icss.ast.VariableReference;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Which variable assignment every reference uses, and the other way around, for one AST.
+ * Made by the {@link Resolver}. Nodes are compared by identity, two rules that look the
+ * same are still different rules. The graph is not updated when the AST changes.
+ */
+public class DependencyGraph {
+
+    final Map<VariableReference, VariableAssignment> definitions = new IdentityHashMap<>();
+    final Map<VariableAssignment, List<VariableReference>> references = new IdentityHashMap<>();
+    //The assignments whose value an assignment uses
+    final Map<VariableAssignment, List<VariableAssignment>> dependencies = new IdentityHashMap<>();
+    //Where a reference is used, references in global assignments have no rule
+    final Map<VariableReference, Stylerule> ruleOf = new IdentityHashMap<>();
+    final Map<VariableReference, VariableAssignment> assignmentOf = new IdentityHashMap<>();
+    final Map<String, List<VariableAssignment>> globals = new HashMap<>();
+    final List<Stylerule> rules = new ArrayList<>();
+    final List<VariableReference> undefined = new ArrayList<>();
+
+    DependencyGraph() {
+    }
+
+    /**
+     * @return the assignment the reference gets its value from, or null when the variable is not defined there
+     */
+    public VariableAssignment getDefinition(VariableReference reference) {
+        return definitions.get(reference);
+    }
+
+    /**
+     * @return the references that get their value from the assignment, in source order
+     */
+    public List<VariableReference> getReferences(VariableAssignment assignment) {
+        return Collections.unmodifiableList(references.getOrDefault(assignment, Collections.emptyList()));
+    }
+
+    /**
+     * @return the assignments whose value is used in the expression of the given assignment
+     */
+    public List<VariableAssignment> getDependencies(VariableAssignment assignment) {
+        return Collections.unmodifiableList(dependencies.getOrDefault(assignment, Collections.emptyList()));
+    }
+
+    /**
+     * @return all assignments of the global variable with this name, in source order
+     */
+    public List<VariableAssignment> getGlobalAssignments(String name) {
+        return Collections.unmodifiableList(globals.getOrDefault(name, Collections.emptyList()));
+    }
+
+    /**
+     * @return the references to variables that are not defined where they are used
+     */
+    public List<VariableReference> getUndefinedReferences() {
+        return Collections.unmodifiableList(undefined);
+    }
+
+    /**
+     * @return the stylerules whose output can change when the value of the assignment changes,
+     * directly or through other variables that are computed from it, in source order
+     */
+    public List<Stylerule> getAffectedRules(VariableAssignment assignment) {
+        return affectedRules(Collections.singletonList(assignment));
+    }
+
+    /**
+     * @return the stylerules whose output can change when any assignment of the global variable changes
+     */
+    public List<Stylerule> getAffectedRules(String globalName) {
+        return affectedRules(getGlobalAssignments(globalName));
+    }
+
+    private List<Stylerule> affectedRules(List<VariableAssignment> changed) {
+        Set<VariableAssignment> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Stylerule> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<VariableAssignment> pending = new ArrayDeque<>(changed);
+        while (!pending.isEmpty()) {
+            VariableAssignment assignment = pending.pop();
+            if (!visited.add(assignment))
+                continue;
+            for (VariableReference reference : references.getOrDefault(assignment, Collections.emptyList())) {
+                Stylerule rule = ruleOf.get(reference);
+                if (rule != null)
+                    affected.add(rule);
+                VariableAssignment dependent = assignmentOf.get(reference);
+                if (dependent != null)
+                    pending.push(dependent);
+            }
+        }
+
+        List<Stylerule> inOrder = new ArrayList<>();
+        for (Stylerule rule : rules) {
+            if (affected.contains(rule))
+                inOrder.add(rule);
+        }
+        return inOrder;
+    }
+}
@@ -0,0 +1,115 @@
+package nl.han.ica.icss.resolver;
+
+import nl.han.ica.icss.ast.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+/**
+ * Binds every variable reference to the assignment that defines it, with the same scoping
+ * as the Checker and the Evaluator: the stylesheet, every stylerule and every if and else
+ * body are a scope, and a reference sees the last assignment before it in the innermost
+ * scope that has one. The result is a {@link DependencyGraph}.
+ */
+public class Resolver {
+
+    private LinkedList<HashMap<String, VariableAssignment>> scopes;
+    private DependencyGraph graph;
+    //The statement that is being resolved
+    private Stylerule currentRule;
+    private VariableAssignment currentAssignment;
+
+    public DependencyGraph resolve(AST ast) {
+        scopes = new LinkedList<>();
+        graph = new DependencyGraph();
+        currentRule = null;
+
+        scopes.push(new HashMap<>());
+        for (ASTNode child : ast.root.getChildren()) {
+            if (child instanceof VariableAssignment) {
+                resolveVariableAssignment((VariableAssignment) child);
+            } else if (child instanceof Stylerule) {
+                resolveStylerule((Stylerule) child);
+            }
+        }
+        scopes.pop();
+        return graph;
+    }
+
+    private void resolveStylerule(Stylerule rule) {
+        currentRule = rule;
+        graph.rules.add(rule);
+        resolveBody(rule.body);
+        currentRule = null;
+    }
+
+    private void resolveBody(ArrayList<ASTNode> body) {
+        scopes.push(new HashMap<>());
+        for (ASTNode child : body) {
+            if (child instanceof VariableAssignment) {
+                resolveVariableAssignment((VariableAssignment) child);
+            } else if (child instanceof Declaration) {
+                resolveExpression(((Declaration) child).expression);
+            } else if (child instanceof IfClause) {
+                resolveIfClause((IfClause) child);
+            }
+        }
+        scopes.pop();
+    }
+
+    private void resolveIfClause(IfClause ifClause) {
+        resolveExpression(ifClause.conditionalExpression);
+        resolveBody(ifClause.body);
+        if (ifClause.elseClause != null)
+            resolveBody(ifClause.elseClause.body);
+    }
+
+    //The expression is resolved before the name is bound, X := X + 1px uses the previous X
+    private void resolveVariableAssignment(VariableAssignment assignment) {
+        currentAssignment = assignment;
+        resolveExpression(assignment.expression);
+        currentAssignment = null;
+
+        graph.references.put(assignment, new ArrayList<>());
+        graph.dependencies.putIfAbsent(assignment, new ArrayList<>());
+        scopes.peek().put(assignment.name.name, assignment);
+        if (currentRule == null)
+            graph.globals.computeIfAbsent(assignment.name.name, name -> new ArrayList<>()).add(assignment);
+    }
+
+    private void resolveExpression(Expression expression) {
+        if (expression instanceof VariableReference) {
+            resolveReference((VariableReference) expression);
+        } else if (expression instanceof Operation) {
+            resolveExpression(((Operation) expression).lhs);
+            resolveExpression(((Operation) expression).rhs);
+        }
+    }
+
+    private void resolveReference(VariableReference reference) {
+        if (currentRule != null)
+            graph.ruleOf.put(reference, currentRule);
+        if (currentAssignment != null)
+            graph.assignmentOf.put(reference, currentAssignment);
+
+        VariableAssignment definition = lookup(reference.name);
+        if (definition == null) {
+            graph.undefined.add(reference);
+            return;
+        }
+        graph.definitions.put(reference, definition);
+        graph.references.get(definition).add(reference);
+        if (currentAssignment != null)
+            graph.dependencies.computeIfAbsent(currentAssignment, assignment -> new ArrayList<>()).add(definition);
+    }
+
+    private VariableAssignment lookup(String name) {
+        for (HashMap<String, VariableAssignment> scope : scopes) {
+            VariableAssignment assignment = scope.get(name);
+            if (assignment != null)
+                return assignment;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,312 @@
+package nl.han.ica.icss.synthetic;
+
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates ICSS source text of arbitrary size and shape for scale and stress testing.
+ * The output only depends on the {@link Settings}, so the same seed always yields the same
+ * stylesheet. Unless semantic errors are requested the output parses, checks and
+ * transforms without errors.
+ */
+public class StylesheetGenerator {
+
+    /**
+     * The shape of the generated stylesheet.
+     */
+    public static class Settings {
+        public long seed = 0;
+        //Number of variables assigned before the first stylerule
+        public int globalVariables = 10;
+        public int stylerules = 100;
+        //Number of statements per stylerule, an if/else clause counts as one statement
+        public int declarationsPerRule = 5;
+        //Number of variables assigned inside each stylerule
+        public int localVariablesPerRule = 0;
+        //Maximum depth of nested if/else clauses, 0 generates no if clauses
+        public int ifNestingDepth = 1;
+        //Maximum number of operators in a single expression
+        public int operatorChainLength = 2;
+        //Number of declarations that are replaced by something the checker rejects
+        public int semanticErrors = 0;
+
+        /**
+         * @return settings for roughly the given total number of declarations
+         */
+        public static Settings forDeclarations(int declarations) {
+            Settings settings = new Settings();
+            settings.globalVariables = 20;
+            settings.declarationsPerRule = 10;
+            settings.stylerules = Math.max(1, declarations / settings.declarationsPerRule);
+            settings.ifNestingDepth = 2;
+            settings.operatorChainLength = 3;
+            return settings;
+        }
+    }
+
+    private static final String[] TAGS = {"p", "a", "div", "span", "li", "ul", "h1", "h2", "section", "nav"};
+    private static final ExpressionType[] VARIABLE_TYPES = {
+            ExpressionType.PIXEL, ExpressionType.PERCENTAGE, ExpressionType.SCALAR,
+            ExpressionType.COLOR, ExpressionType.BOOL
+    };
+
+    private final Settings settings;
+    private Random random;
+    private Appendable out;
+    private List<Variable> variables;
+    private BitSet invalidStatements;
+    private int statementIndex;
+
+    public StylesheetGenerator(Settings settings) {
+        this.settings = settings;
+    }
+
+    public String generate() {
+        StringBuilder source = new StringBuilder(settings.stylerules * settings.declarationsPerRule * 32);
+        try {
+            write(source);
+        } catch (IOException e) {
+            //StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return source.toString();
+    }
+
+    public void write(Appendable out) throws IOException {
+        this.out = out;
+        random = new Random(settings.seed);
+        variables = new ArrayList<>();
+        invalidStatements = pickInvalidStatements();
+        statementIndex = 0;
+
+        for (int i = 0; i < settings.globalVariables; i++) {
+            writeVariableAssignment("", "Global" + i, VARIABLE_TYPES[i % VARIABLE_TYPES.length]);
+        }
+        out.append('\n');
+        for (int i = 0; i < settings.stylerules; i++) {
+            writeStylerule(i);
+        }
+    }
+
+    private BitSet pickInvalidStatements() {
+        int statements = settings.stylerules * settings.declarationsPerRule;
+        int errors = Math.min(settings.semanticErrors, statements);
+        BitSet picked = new BitSet(statements);
+        while (picked.cardinality() < errors) {
+            picked.set(random.nextInt(statements));
+        }
+        return picked;
+    }
+
+    private void writeStylerule(int index) throws IOException {
+        switch (index % 3) {
+            case 0:
+                out.append(TAGS[random.nextInt(TAGS.length)]);
+                break;
+            case 1:
+                out.append(".class-").append(Integer.toString(index));
+                break;
+            default:
+                out.append("#id-").append(Integer.toString(index));
+        }
+        out.append(" {\n");
+
+        int scopeStart = variables.size();
+        int localsLeft = settings.localVariablesPerRule;
+        for (int i = 0; i < settings.declarationsPerRule; i++) {
+            if (localsLeft > 0 && random.nextBoolean()) {
+                writeVariableAssignment("\t", "Local" + index + "_" + localsLeft, randomVariableType());
+                localsLeft--;
+            }
+            if (invalidStatements.get(statementIndex++)) {
+                writeInvalidStatement("\t");
+            } else if (settings.ifNestingDepth > 0 && random.nextInt(4) == 0) {
+                writeIfClause("\t", 1);
+            } else {
+                writeDeclaration("\t");
+            }
+        }
+        while (localsLeft > 0) {
+            writeVariableAssignment("\t", "Local" + index + "_" + localsLeft, randomVariableType());
+            localsLeft--;
+        }
+        out.append("}\n");
+
+        //Local variables go out of scope
+        variables.subList(scopeStart, variables.size()).clear();
+    }
+
+    private void writeIfClause(String indent, int depth) throws IOException {
+        out.append(indent).append("if[").append(expression(ExpressionType.BOOL)).append("] {\n");
+        writeClauseBody(indent + "\t", depth);
+        out.append(indent).append('}');
+        if (random.nextBoolean()) {
+            out.append(" else {\n");
+            writeClauseBody(indent + "\t", depth);
+            out.append(indent).append('}');
+        }
+        out.append('\n');
+    }
+
+    private void writeClauseBody(String indent, int depth) throws IOException {
+        writeDeclaration(indent);
+        if (depth < settings.ifNestingDepth && random.nextBoolean()) {
+            writeIfClause(indent, depth + 1);
+        }
+        if (random.nextBoolean()) {
+            writeDeclaration(indent);
+        }
+    }
+
+    private void writeDeclaration(String indent) throws IOException {
+        switch (random.nextInt(4)) {
+            case 0:
+                out.append(indent).append("width: ").append(expression(randomSizeType())).append(";\n");
+                break;
+            case 1:
+                out.append(indent).append("height: ").append(expression(randomSizeType())).append(";\n");
+                break;
+            case 2:
+                out.append(indent).append("color: ").append(expression(ExpressionType.COLOR)).append(";\n");
+                break;
+            default:
+                out.append(indent).append("background-color: ").append(expression(ExpressionType.COLOR)).append(";\n");
+        }
+    }
+
+    private void writeVariableAssignment(String indent, String name, ExpressionType type) throws IOException {
+        out.append(indent).append(name).append(" := ").append(expression(type)).append(";\n");
+        variables.add(new Variable(name, type));
+    }
+
+    /*
+     Every invalid statement produces at least one error in the checker.
+     */
+    private void writeInvalidStatement(String indent) throws IOException {
+        switch (random.nextInt(8)) {
+            case 0:
+                out.append(indent).append("width: ").append(colorLiteral()).append(";\n");
+                break;
+            case 1:
+                out.append(indent).append("color: ").append(literal(ExpressionType.PIXEL)).append(";\n");
+                break;
+            case 2:
+                out.append(indent).append("width: Undefined").append(Integer.toString(statementIndex)).append(";\n");
+                break;
+            case 3:
+                out.append(indent).append("width: ").append(literal(ExpressionType.PIXEL))
+                        .append(" + ").append(literal(ExpressionType.PERCENTAGE)).append(";\n");
+                break;
+            case 4:
+                out.append(indent).append("height: ").append(literal(ExpressionType.PIXEL))
+                        .append(" * ").append(literal(ExpressionType.PIXEL)).append(";\n");
+                break;
+            case 5:
+                out.append(indent).append("width: ").append(colorLiteral())
+                        .append(" + ").append(literal(ExpressionType.PIXEL)).append(";\n");
+                break;
+            case 6:
+                out.append(indent).append("if[").append(literal(ExpressionType.PIXEL)).append("] {\n");
+                writeDeclaration(indent + "\t");
+                out.append(indent).append("}\n");
+                break;
+            default:
+                out.append(indent).append("margin: ").append(literal(ExpressionType.PIXEL)).append(";\n");
+        }
+    }
+
+    /*
+     Builds an expression of the given type. Sizes are chained with +, - and * where
+     every * multiplies by a scalar, so the type of the whole chain stays the same.
+     */
+    private String expression(ExpressionType type) {
+        if (type == ExpressionType.COLOR || type == ExpressionType.BOOL || settings.operatorChainLength == 0)
+            return operand(type);
+
+        StringBuilder expression = new StringBuilder(operand(type));
+        int operators = random.nextInt(settings.operatorChainLength + 1);
+        for (int i = 0; i < operators; i++) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    expression.append(" + ").append(operand(type));
+                    break;
+                case 1:
+                    expression.append(" - ").append(operand(type));
+                    break;
+                default:
+                    expression.append(" * ").append(operand(ExpressionType.SCALAR));
+            }
+        }
+        return expression.toString();
+    }
+
+    private String operand(ExpressionType type) {
+        if (random.nextInt(3) == 0) {
+            String name = randomVariable(type);
+            if (name != null)
+                return name;
+        }
+        return literal(type);
+    }
+
+    private String randomVariable(ExpressionType type) {
+        int candidates = 0;
+        for (Variable variable : variables) {
+            if (variable.type == type)
+                candidates++;
+        }
+        if (candidates == 0)
+            return null;
+        int pick = random.nextInt(candidates);
+        for (Variable variable : variables) {
+            if (variable.type == type && pick-- == 0)
+                return variable.name;
+        }
+        return null;
+    }
+
+    private String literal(ExpressionType type) {
+        switch (type) {
+            case PIXEL:
+                return random.nextInt(1000) + "px";
+            case PERCENTAGE:
+                return random.nextInt(101) + "%";
+            case SCALAR:
+                return Integer.toString(1 + random.nextInt(10));
+            case COLOR:
+                return colorLiteral();
+            case BOOL:
+                return random.nextBoolean() ? "TRUE" : "FALSE";
+            default:
+                throw new IllegalArgumentException("No literal for type " + type);
+        }
+    }
+
+    private String colorLiteral() {
+        return String.format("#%06x", random.nextInt(0x1000000));
+    }
+
+    private ExpressionType randomSizeType() {
+        return random.nextBoolean() ? ExpressionType.PIXEL : ExpressionType.PERCENTAGE;
+    }
+
+    private ExpressionType randomVariableType() {
+        return VARIABLE_TYPES[random.nextInt(VARIABLE_TYPES.length)];
+    }
+
+    private static class Variable {
+        private final String name;
+        private final ExpressionType type;
+
+        private Variable(String name, ExpressionType type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+}
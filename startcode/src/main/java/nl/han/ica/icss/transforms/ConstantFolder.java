@@ -0,0 +1,137 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.resolver.Binder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Replaces every expression whose value does not depend on the branch taken in an if
+ * clause by its value, before the Evaluator runs. Variables whose value folds to a literal
+ * are replaced by that literal, so after a successful check nearly all expressions fold.
+ *
+ * Every distinct operation on two literals is computed once per stylesheet: the same
+ * Width * 2 + 10px in a hundred rules costs two lookups each after the first, and all
+ * of them share the same resulting literal.
+ *
+ * The AST has to be bound or is bound while folding, like the Checker does.
+ */
+public class ConstantFolder implements Transform {
+
+    private Binder binder;
+    //True when the variables are bound while folding, false when the Checker has bound them
+    private boolean binding;
+    //The folded value of every variable slot, null when the value is not known up front
+    private Literal[] constants;
+    private final HashMap<Folding, Literal> foldings = new HashMap<>();
+
+    @Override
+    public void apply(AST ast) {
+        binding = ast.variableSlots < 0;
+        if (binding)
+            binder = new Binder();
+        constants = new Literal[Math.max(ast.variableSlots, 16)];
+
+        for (ASTNode child : ast.root.body) {
+            if (child instanceof VariableAssignment) {
+                foldVariableAssignment((VariableAssignment) child);
+            } else if (child instanceof Stylerule) {
+                foldBody(((Stylerule) child).body);
+            }
+        }
+        if (binding)
+            ast.variableSlots = binder.getSlotCount();
+    }
+
+    private void foldBody(List<ASTNode> body) {
+        if (binding)
+            binder.openScope();
+        for (ASTNode child : body) {
+            if (child instanceof VariableAssignment) {
+                foldVariableAssignment((VariableAssignment) child);
+            } else if (child instanceof Declaration) {
+                Declaration declaration = (Declaration) child;
+                declaration.expression = fold(declaration.expression);
+            } else if (child instanceof IfClause) {
+                foldIfClause((IfClause) child);
+            }
+        }
+        if (binding)
+            binder.closeScope();
+    }
+
+    private void foldIfClause(IfClause ifClause) {
+        ifClause.conditionalExpression = fold(ifClause.conditionalExpression);
+        foldBody(ifClause.body);
+        if (ifClause.elseClause != null)
+            foldBody(ifClause.elseClause.body);
+    }
+
+    private void foldVariableAssignment(VariableAssignment assignment) {
+        assignment.expression = fold(assignment.expression);
+        if (binding) {
+            binder.bindAssignment(assignment);
+            if (constants.length < binder.getSlotCount())
+                constants = Arrays.copyOf(constants, 2 * constants.length);
+        }
+        //Also clears what an earlier user of the slot left behind
+        constants[assignment.name.slot] = assignment.expression instanceof Literal ? (Literal) assignment.expression : null;
+    }
+
+    private Expression fold(Expression expression) {
+        if (expression instanceof VariableReference) {
+            VariableReference reference = (VariableReference) expression;
+            int slot = binding ? binder.bindReference(reference) : reference.slot;
+            if (slot >= 0 && constants[slot] != null)
+                return constants[slot];
+        } else if (expression instanceof Operation) {
+            Operation operation = (Operation) expression;
+            operation.lhs = fold(operation.lhs);
+            operation.rhs = fold(operation.rhs);
+            if (operation.lhs instanceof Literal && operation.rhs instanceof Literal)
+                return foldOperation(operation, (Literal) operation.lhs, (Literal) operation.rhs);
+        }
+        return expression;
+    }
+
+    private Literal foldOperation(Operation operation, Literal lhs, Literal rhs) {
+        Folding folding = new Folding(operation.getClass(), lhs, rhs);
+        Literal value = foldings.get(folding);
+        if (value == null) {
+            value = Evaluator.evalOperation(operation, lhs, rhs);
+            foldings.put(folding, value);
+        }
+        return value;
+    }
+
+    /*
+     An operation on two literals. ASTNode.equals does not look at the type of the
+     operation, so the operations themselves cannot be the key.
+     */
+    private static final class Folding {
+        private final Class<?> operation;
+        private final Literal lhs;
+        private final Literal rhs;
+
+        private Folding(Class<?> operation, Literal lhs, Literal rhs) {
+            this.operation = operation;
+            this.lhs = lhs;
+            this.rhs = rhs;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Folding)) return false;
+            Folding that = (Folding) o;
+            return operation == that.operation && lhs.equals(that.lhs) && rhs.equals(that.rhs);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * operation.hashCode() + lhs.hashCode()) + rhs.hashCode();
+        }
+    }
+}
@@ -9,44 +9,131 @@ import nl.han.ica.icss.ast.literals.ScalarLiteral;
 import nl.han.ica.icss.ast.operations.AddOperation;
 import nl.han.ica.icss.ast.operations.MultiplyOperation;
 import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.parallel.Chunks;
+import nl.han.ica.icss.resolver.Binder;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.List;
 
 public class Evaluator implements Transform {
 
-    private LinkedList<HashMap<String, Literal>> variableValues;
+    //Large enough that a task is worth handing to another thread
+    private static final int RULES_PER_TASK = 64;
+
+    private Binder binder;
+    //True when the variables are bound while evaluating, false when the Checker has bound them
+    private boolean binding;
+    //The value of every variable slot, see the Binder
+    private Literal[] variableValues;
 
     public Evaluator() {
-        variableValues = new LinkedList<>();
+        begin();
+    }
+
+    //Evaluates stylerules of a bound AST with its own copy of the values of the globals
+    private Evaluator(Literal[] variableValues) {
+        this.binding = false;
+        this.variableValues = variableValues;
     }
 
     @Override
     public void apply(AST ast) {
-        variableValues.push(new HashMap<>());
-        applyStylesheet(ast.root);
-        variableValues.pop();
+        //Computes every expression that only depends on literals up front, and binds the AST
+        new ConstantFolder().apply(ast);
+        if (ast.variableSlots < 0) {
+            begin();
+        } else {
+            binding = false;
+            variableValues = new Literal[ast.variableSlots];
+        }
+        for (ASTNode child : ast.root.getChildren()) {
+            applyStatement(child);
+        }
     }
 
-    private void applyStylesheet(Stylesheet node) {
-        for (ASTNode child : node.getChildren()) {
-            if (child instanceof VariableAssignment) {
-                applyVariableAssignment((VariableAssignment) child);
-            } else if (child instanceof Stylerule) {
-                applyStylerule((Stylerule) child);
+    /**
+     * Evaluates like {@link #apply(AST)}, but the stylerules are evaluated in parallel once the
+     * global variables have their values.
+     */
+    public void applyParallel(AST ast) {
+        //Folds and binds the AST, like apply
+        new ConstantFolder().apply(ast);
+        binding = false;
+        variableValues = new Literal[ast.variableSlots];
+        List<ASTNode> statements = ast.root.body;
+        int firstRule = 0;
+        while (firstRule < statements.size() && !(statements.get(firstRule) instanceof Stylerule)) {
+            applyStatement(statements.get(firstRule++));
+        }
+        //Every part writes the variables of its stylerules into its own copy of the values
+        Chunks.forEach(firstRule, statements.size(), RULES_PER_TASK, (from, to) -> {
+            Evaluator part = new Evaluator(variableValues.clone());
+            for (int i = from; i < to; i++) {
+                part.applyStatement(statements.get(i));
             }
+        });
+    }
+
+    /**
+     * Starts evaluating a stylesheet whose top-level statements are passed to
+     * {@link #applyStatement(ASTNode)} one at a time, in source order.
+     */
+    public void begin() {
+        binder = new Binder();
+        binding = true;
+        variableValues = new Literal[16];
+    }
+
+    /**
+     * Makes the value of a global variable known to the statements evaluated after it,
+     * as if its assignment had been evaluated.
+     */
+    public void declareGlobal(String name, Literal value) {
+        int slot = binder.declareGlobal(name);
+        growSlots();
+        variableValues[slot] = value;
+    }
+
+    /**
+     * Evaluates a checked global variable assignment or stylerule. Only the values of the
+     * global variables are kept between calls.
+     */
+    public void applyStatement(ASTNode statement) {
+        if (statement instanceof VariableAssignment) {
+            applyVariableAssignment((VariableAssignment) statement);
+        } else if (statement instanceof Stylerule) {
+            applyStylerule((Stylerule) statement);
         }
     }
 
+    private void growSlots() {
+        if (variableValues.length < binder.getSlotCount())
+            variableValues = Arrays.copyOf(variableValues, Math.max(binder.getSlotCount(), 2 * variableValues.length));
+    }
+
+    private void openScope() {
+        if (binding)
+            binder.openScope();
+    }
+
+    private void closeScope() {
+        if (binding)
+            binder.closeScope();
+    }
+
     private void applyVariableAssignment(VariableAssignment node) {
         Literal value = evalExpression(node.expression);
         node.expression = value;
-        variableValues.peek().put(node.name.name, value);
+        if (binding) {
+            binder.bindAssignment(node);
+            growSlots();
+        }
+        variableValues[node.name.slot] = value;
     }
 
     private void applyStylerule(Stylerule node) {
-        variableValues.push(new HashMap<>());
+        openScope();
         ArrayList<ASTNode> transformedBody = new ArrayList<>();
 
         for (ASTNode child : node.body) {
@@ -63,7 +150,7 @@ public class Evaluator implements Transform {
         //if clauses verwijderen en correcte nodes in body zetten
         node.body.clear();
         node.body.addAll(transformedBody);
-        variableValues.pop();
+        closeScope();
     }
 
     private void applyDeclaration(Declaration node) {
@@ -77,7 +164,7 @@ public class Evaluator implements Transform {
 
         boolean condValue = ((BoolLiteral) cond).value;
 
-        variableValues.push(new HashMap<>());
+        openScope();
 
         if (condValue) {
             for (ASTNode child : node.body) {
@@ -104,32 +191,35 @@ public class Evaluator implements Transform {
                 }
             }
         }
-
-        variableValues.pop();
+        closeScope();
     }
 
     private Literal evalExpression(Expression node) {
         if (node instanceof Literal) {
             return (Literal) node;
         } else if (node instanceof VariableReference) {
-            return lookupVariable(((VariableReference) node).name);
+            return lookupVariable((VariableReference) node);
         } else if (node instanceof Operation) {
             return evalOperation((Operation) node);
         }
         throw new IllegalArgumentException("Unknown expression type: " + node.getClass().getSimpleName());
     }
 
-    private Literal lookupVariable(String name) {
-        for (HashMap<String, Literal> scope : variableValues) {
-            if (scope.containsKey(name)) return scope.get(name);
-        }
-        throw new IllegalStateException("Variable " + name + " not found.");
+    private Literal lookupVariable(VariableReference reference) {
+        int slot = binding ? binder.bindReference(reference) : reference.slot;
+        if (slot < 0)
+            throw new IllegalStateException("Variable " + reference.name + " not found.");
+        return variableValues[slot];
     }
 
     private Literal evalOperation(Operation node) {
         Literal left = evalExpression(node.lhs);
         Literal right = evalExpression(node.rhs);
+        return evalOperation(node, left, right);
+    }
 
+    //Also used by the ConstantFolder
+    static Literal evalOperation(Operation node, Literal left, Literal right) {
         if (node instanceof AddOperation) return evalAdd(left, right);
         if (node instanceof SubtractOperation) return evalSubtract(left, right);
         if (node instanceof MultiplyOperation) return evalMultiply(left, right);
@@ -137,38 +227,38 @@ public class Evaluator implements Transform {
         throw new IllegalArgumentException("Unknown operation type: " + node.getClass().getSimpleName());
     }
 
-    private Literal evalAdd(Literal left, Literal right) {
+    private static Literal evalAdd(Literal left, Literal right) {
         if (left instanceof PixelLiteral && right instanceof PixelLiteral)
-            return new PixelLiteral(((PixelLiteral) left).value + ((PixelLiteral) right).value);
+            return PixelLiteral.valueOf(((PixelLiteral) left).value + ((PixelLiteral) right).value);
         if (left instanceof PercentageLiteral && right instanceof PercentageLiteral)
-            return new PercentageLiteral(((PercentageLiteral) left).value + ((PercentageLiteral) right).value);
+            return PercentageLiteral.valueOf(((PercentageLiteral) left).value + ((PercentageLiteral) right).value);
         if (left instanceof ScalarLiteral && right instanceof ScalarLiteral)
-            return new ScalarLiteral(((ScalarLiteral) left).value + ((ScalarLiteral) right).value);
+            return ScalarLiteral.valueOf(((ScalarLiteral) left).value + ((ScalarLiteral) right).value);
         throw new IllegalArgumentException("Invalid operands for addition");
     }
 
-    private Literal evalSubtract(Literal left, Literal right) {
+    private static Literal evalSubtract(Literal left, Literal right) {
         if (left instanceof PixelLiteral && right instanceof PixelLiteral)
-            return new PixelLiteral(((PixelLiteral) left).value - ((PixelLiteral) right).value);
+            return PixelLiteral.valueOf(((PixelLiteral) left).value - ((PixelLiteral) right).value);
         if (left instanceof PercentageLiteral && right instanceof PercentageLiteral)
-            return new PercentageLiteral(((PercentageLiteral) left).value - ((PercentageLiteral) right).value);
+            return PercentageLiteral.valueOf(((PercentageLiteral) left).value - ((PercentageLiteral) right).value);
         if (left instanceof ScalarLiteral && right instanceof ScalarLiteral)
-            return new ScalarLiteral(((ScalarLiteral) left).value - ((ScalarLiteral) right).value);
+            return ScalarLiteral.valueOf(((ScalarLiteral) left).value - ((ScalarLiteral) right).value);
         throw new IllegalArgumentException("Invalid operands for subtraction");
     }
 
-    private Literal evalMultiply(Literal left, Literal right) {
+    private static Literal evalMultiply(Literal left, Literal right) {
         if (left instanceof ScalarLiteral) {
             int val = ((ScalarLiteral) left).value;
-            if (right instanceof PixelLiteral) return new PixelLiteral(val * ((PixelLiteral) right).value);
+            if (right instanceof PixelLiteral) return PixelLiteral.valueOf(val * ((PixelLiteral) right).value);
             if (right instanceof PercentageLiteral)
-                return new PercentageLiteral(val * ((PercentageLiteral) right).value);
-            if (right instanceof ScalarLiteral) return new ScalarLiteral(val * ((ScalarLiteral) right).value);
+                return PercentageLiteral.valueOf(val * ((PercentageLiteral) right).value);
+            if (right instanceof ScalarLiteral) return ScalarLiteral.valueOf(val * ((ScalarLiteral) right).value);
         }
         if (right instanceof ScalarLiteral) {
             int val = ((ScalarLiteral) right).value;
-            if (left instanceof PixelLiteral) return new PixelLiteral(((PixelLiteral) left).value * val);
-            if (left instanceof PercentageLiteral) return new PercentageLiteral(((PercentageLiteral) left).value * val);
+            if (left instanceof PixelLiteral) return PixelLiteral.valueOf(((PixelLiteral) left).value * val);
+            if (left instanceof PercentageLiteral) return PercentageLiteral.valueOf(((PercentageLiteral) left).value * val);
         }
         throw new IllegalArgumentException("Invalid operands for multiplication");
     }
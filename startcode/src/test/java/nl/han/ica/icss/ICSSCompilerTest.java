@@ -0,0 +1,227 @@
+package nl.han.ica.icss;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.checker.PropertyRegistry;
+import nl.han.ica.icss.synthetic.StylesheetGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class ICSSCompilerTest {
+
+	String readResource(String resource) throws IOException {
+		try (InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream(resource)) {
+			return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	void testCompileLevel3() throws IOException {
+		CompilationResult result = new ICSSCompiler().compile(readResource("level3.icss"));
+
+		assertTrue(result.isTransformed(), result.getErrors().toString());
+		assertTrue(result.getCss().startsWith("p {\n  background-color: #ffffff;\n  width: 500px;\n"));
+		assertTrue(result.getCss().endsWith("  background-color: #ff0000;\n}"));
+	}
+
+	@Test
+	void testCompileStopsAtFirstFailingStage() {
+		CompilationResult result = new ICSSCompiler().compile("p { width: #ff0000; }");
+
+		assertTrue(result.isParsed());
+		assertFalse(result.isChecked());
+		assertNull(result.getCss());
+		assertEquals(1, result.getErrors().size());
+	}
+
+	@Test
+	void testSyntaxErrorsStayInTheirOwnResult() {
+		ICSSCompiler compiler = new ICSSCompiler();
+		CompilationResult broken = compiler.compile("p { width 10px; }");
+		CompilationResult fine = compiler.compile("p { width: 10px; }");
+
+		assertFalse(broken.isParsed());
+		assertTrue(broken.getErrors().get(0).startsWith("Syntax error: "));
+		assertFalse(fine.hasErrors());
+	}
+
+	@Test
+	void testSharedCompilerIsThreadSafe() throws Exception {
+		ICSSCompiler compiler = new ICSSCompiler();
+		List<String> sources = new ArrayList<>();
+		for (int level = 0; level < 4; level++) {
+			sources.add(readResource("level" + level + ".icss"));
+		}
+		List<String> expected = new ArrayList<>();
+		for (String source : sources) {
+			expected.add(compiler.compile(source).getCss());
+		}
+
+		ExecutorService workers = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> outputs = new ArrayList<>();
+			for (int i = 0; i < 400; i++) {
+				String source = sources.get(i % sources.size());
+				outputs.add(workers.submit(() -> compiler.compile(source).getCss()));
+			}
+			for (int i = 0; i < outputs.size(); i++) {
+				assertEquals(expected.get(i % sources.size()), outputs.get(i).get());
+			}
+		} finally {
+			workers.shutdown();
+		}
+	}
+
+	@Test
+	void testStreamingProducesTheSameCss() throws IOException {
+		ICSSCompiler compiler = new ICSSCompiler();
+		List<String> sources = new ArrayList<>();
+		for (int level = 0; level < 4; level++) {
+			sources.add(readResource("level" + level + ".icss"));
+		}
+		StylesheetGenerator.Settings settings = StylesheetGenerator.Settings.forDeclarations(2000);
+		settings.localVariablesPerRule = 2;
+		sources.add(new StylesheetGenerator(settings).generate());
+
+		for (String source : sources) {
+			StringWriter css = new StringWriter();
+			CompilationResult result = compiler.compile(new StringReader(source), css);
+
+			assertTrue(result.isTransformed(), result.getErrors().toString());
+			assertEquals(compiler.compile(source).getCss(), css.toString());
+		}
+	}
+
+	@Test
+	void testStreamingReportsErrors() throws IOException {
+		ICSSCompiler compiler = new ICSSCompiler();
+		String[] inputs = {"p { width 10px; }", "p { width: #ff0000; } a { color: 10px; }", "p { width: 1px; } @",
+				//Errors at the end of the input
+				"p {", "p { width: 1px;"};
+		for (String input : inputs) {
+			CompilationResult result = compiler.compile(new StringReader(input), new StringWriter());
+
+			assertFalse(result.isTransformed(), input);
+			assertEquals(compiler.compile(input).getErrors(), result.getErrors(), input);
+		}
+	}
+
+	@Test
+	void testStreamingChecksWithTheRegistryOfTheOptions() throws IOException {
+		ICSSCompiler compiler = new ICSSCompiler();
+		String input = "p { margin: 10px; } a { width: 10px; }";
+		ICSSCompiler.Options options = ICSSCompiler.Options.DEFAULT
+				.withProperties(PropertyRegistry.DEFAULT.with("margin", Set.of(ExpressionType.PIXEL)));
+
+		StringWriter css = new StringWriter();
+		CompilationResult result = compiler.compile(new StringReader(input), css, options);
+		assertTrue(result.isTransformed(), result.getErrors().toString());
+		assertEquals(compiler.compile(input, options).getCss(), css.toString());
+
+		assertFalse(compiler.compile(new StringReader(input), new StringWriter()).isChecked());
+	}
+
+	@Test
+	void testStreamingWritesBeforeTheInputIsRead() throws IOException {
+		StylesheetGenerator.Settings settings = StylesheetGenerator.Settings.forDeclarations(1000);
+		String source = new StylesheetGenerator(settings).generate();
+		StringReader reader = new StringReader(source);
+		int[] remainingAtFirstWrite = {-1};
+		Writer target = new StringWriter() {
+			@Override
+			public void write(String str, int off, int len) {
+				if (remainingAtFirstWrite[0] < 0)
+					remainingAtFirstWrite[0] = remaining(reader);
+				super.write(str, off, len);
+			}
+		};
+
+		new ICSSCompiler().compile(reader, target);
+
+		assertTrue(remainingAtFirstWrite[0] > source.length() / 2);
+	}
+
+	private static int remaining(StringReader reader) {
+		try {
+			reader.mark(0);
+			int remaining = (int) reader.skip(Long.MAX_VALUE);
+			reader.reset();
+			return remaining;
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	@Test
+	void testParallelRulesGiveTheSameResult() {
+		ICSSCompiler compiler = new ICSSCompiler();
+		ICSSCompiler.Options parallel = ICSSCompiler.Options.DEFAULT.withParallelRules(true);
+		StylesheetGenerator.Settings settings = StylesheetGenerator.Settings.forDeclarations(5000);
+		settings.localVariablesPerRule = 2;
+		String source = new StylesheetGenerator(settings).generate();
+
+		CompilationResult expected = compiler.compile(source);
+		CompilationResult actual = compiler.compile(source, parallel);
+		assertTrue(actual.isTransformed(), actual.getErrors().toString());
+		assertEquals(expected.getCss(), actual.getCss());
+		assertEquals(expected.getAST(), actual.getAST());
+
+		//Break every tenth rule, the errors keep their order
+		String broken = source.replace("0px;", "#ff0000;");
+		List<String> errors = compiler.compile(broken).getErrors();
+		assertTrue(errors.size() > 25);
+		assertEquals(errors, compiler.compile(broken, parallel).getErrors());
+		assertEquals(compiler.compile(broken, ICSSCompiler.Options.DEFAULT.withErrorLimit(25)).getErrors(),
+				compiler.compile(broken, parallel.withErrorLimit(25)).getErrors());
+	}
+
+	@Test
+	void testGeneratingToAChannelGivesTheSameCss() throws IOException {
+		ICSSCompiler compiler = new ICSSCompiler();
+		ICSSCompiler.Options options = ICSSCompiler.Options.DEFAULT.upTo(ICSSCompiler.Stage.TRANSFORM);
+		for (int declarations : new int[]{10, 5000}) {
+			String source = new StylesheetGenerator(StylesheetGenerator.Settings.forDeclarations(declarations)).generate();
+			CompilationResult result = compiler.compile(source, options);
+			assertTrue(result.isTransformed(), result.getErrors().toString());
+
+			ByteArrayOutputStream target = new ByteArrayOutputStream();
+			compiler.generate(result, Channels.newChannel(target));
+			assertNull(result.getCss());
+			assertEquals(compiler.generate(result), target.toString(StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	void testCompactASTGivesTheSameCss() throws IOException {
+		ICSSCompiler compiler = new ICSSCompiler();
+		ICSSCompiler.Options compact = ICSSCompiler.Options.DEFAULT.withCompactAST(true);
+		String source = readResource("level3.icss");
+		CompilationResult result = compiler.compile(source, compact);
+
+		assertTrue(result.isTransformed(), result.getErrors().toString());
+		assertNull(result.getAST());
+		assertNotNull(result.getCompactAST());
+		assertEquals(compiler.compile(source).getCss(), result.getCss());
+
+		//Generating to a channel expands the compact form again
+		result = compiler.compile(source, compact.upTo(ICSSCompiler.Stage.TRANSFORM));
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+		compiler.generate(result, Channels.newChannel(target));
+		assertEquals(compiler.generate(result), target.toString(StandardCharsets.UTF_8));
+	}
+}
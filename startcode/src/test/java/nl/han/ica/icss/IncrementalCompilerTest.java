@@ -0,0 +1,114 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.checker.PropertyRegistry;
+import nl.han.ica.icss.parser.ParserFactory;
+import nl.han.ica.icss.synthetic.StylesheetGenerator;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import java.util.Set;
+
+class IncrementalCompilerTest {
+
+	private static final String SOURCE = "Small := 1px;\nLarge := 20px;\n\n"
+			+ "p {\n\twidth: Small;\n}\n"
+			+ "a {\n\twidth: Large + 2px;\n}\n"
+			+ "div {\n\tcolor: #ffffff;\n}\n";
+
+	private final ICSSCompiler compiler = new ICSSCompiler();
+
+	@Test
+	void testOnlyAffectedStatementsAreRecompiled() {
+		IncrementalCompiler incremental = new IncrementalCompiler();
+		assertEquals(compiler.compile(SOURCE).getCss(), incremental.update(SOURCE).getCss());
+		assertEquals(5, incremental.getRecompiledCount());
+
+		//The assignment and the one rule that uses it
+		String edited = SOURCE.replace("20px", "30px");
+		assertEquals(compiler.compile(edited).getCss(), incremental.update(edited).getCss());
+		assertEquals(2, incremental.getRecompiledCount());
+
+		edited = edited.replace("#ffffff", "#000000");
+		assertEquals(compiler.compile(edited).getCss(), incremental.update(edited).getCss());
+		assertEquals(1, incremental.getRecompiledCount());
+
+		assertTrue(incremental.getStatementAt(edited.indexOf("div")) instanceof Stylerule);
+		assertNull(incremental.getStatementAt(edited.indexOf("\n\np")));
+	}
+
+	@Test
+	void testErrorsComeAndGoWithTheEdit() {
+		IncrementalCompiler incremental = new IncrementalCompiler();
+		incremental.update(SOURCE);
+
+		CompilationResult broken = incremental.update(SOURCE.replace("width: Small;", "width Small;"));
+		assertFalse(broken.isParsed());
+		assertNull(broken.getCss());
+
+		CompilationResult wrongType = incremental.update(SOURCE.replace("1px", "#ff0000"));
+		assertTrue(wrongType.isParsed());
+		assertFalse(wrongType.isChecked());
+		assertEquals(compiler.compile(SOURCE.replace("1px", "#ff0000")).getErrors(), wrongType.getErrors());
+
+		CompilationResult fixed = incremental.update(SOURCE);
+		assertTrue(fixed.isTransformed(), fixed.getErrors().toString());
+		assertEquals(compiler.compile(SOURCE).getCss(), fixed.getCss());
+	}
+
+	@Test
+	void testChecksWithTheRegistryOfTheOptions() {
+		String source = SOURCE + "span {\n\tmargin: Small;\n}\n";
+		ICSSCompiler.Options options = ICSSCompiler.Options.DEFAULT
+				.withProperties(PropertyRegistry.DEFAULT.with("margin", Set.of(ExpressionType.PIXEL)));
+
+		CompilationResult result = new IncrementalCompiler(new ParserFactory(), options).update(source);
+		assertTrue(result.isTransformed(), result.getErrors().toString());
+		assertEquals(compiler.compile(source, options).getCss(), result.getCss());
+
+		assertFalse(new IncrementalCompiler().update(source).isChecked());
+	}
+
+	@Test
+	void testSameCssAsFullCompileAfterRandomEdits() {
+		StylesheetGenerator.Settings settings = StylesheetGenerator.Settings.forDeclarations(500);
+		settings.localVariablesPerRule = 2;
+		String source = new StylesheetGenerator(settings).generate();
+		IncrementalCompiler incremental = new IncrementalCompiler();
+		incremental.update(source);
+
+		Random random = new Random(0);
+		for (int edit = 0; edit < 100; edit++) {
+			int position = random.nextInt(source.length());
+			switch (random.nextInt(3)) {
+				case 0:
+					//Change a pixel size, which keeps the source valid
+					int digit = source.indexOf("px", position) - 1;
+					if (digit >= 0)
+						source = source.substring(0, digit) + random.nextInt(10) + source.substring(digit + 1);
+					break;
+				case 1:
+					//Remove a brace or semicolon and put it back in the next edit
+					String removed = source;
+					source = source.substring(0, position) + source.substring(position + 1);
+					incremental.update(source);
+					source = removed;
+					break;
+				default:
+					//Duplicate a stylerule, only their closing braces are not indented
+					int start = source.indexOf("\n}\n", position);
+					int end = start < 0 ? -1 : source.indexOf("\n}\n", start + 3);
+					if (end >= 0)
+						source = source.substring(0, end + 3) + source.substring(start + 3, end + 3) + source.substring(end + 3);
+			}
+			CompilationResult expected = compiler.compile(source);
+			CompilationResult actual = incremental.update(source);
+
+			assertTrue(expected.isTransformed(), expected.getErrors().toString());
+			assertTrue(actual.isTransformed(), actual.getErrors().toString());
+			assertEquals(expected.getCss(), actual.getCss());
+		}
+	}
+}
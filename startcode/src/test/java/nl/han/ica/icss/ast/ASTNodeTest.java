@@ -0,0 +1,52 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.parser.Fixtures;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class ASTNodeTest {
+
+	@Test
+	void testVisitorSeesTheChildrenInOrder() {
+		AST ast = Fixtures.uncheckedLevel3();
+		List<ASTNode> entered = new ArrayList<>();
+		List<ASTNode> exited = new ArrayList<>();
+		ast.root.accept(new ASTVisitor() {
+			@Override
+			public boolean enter(ASTNode node) {
+				entered.add(node);
+				//The value of a declaration is skipped, but it is still exited
+				return !(node instanceof Declaration);
+			}
+
+			@Override
+			public void exit(ASTNode node) {
+				exited.add(node);
+			}
+		});
+
+		List<ASTNode> expected = new ArrayList<>();
+		preOrder(ast.root, expected);
+		assertEquals(expected.size(), entered.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertSame(expected.get(i), entered.get(i));
+		}
+		assertSame(ast.root, exited.get(exited.size() - 1));
+		assertEquals(entered.size(), exited.size());
+	}
+
+	//Walks the tree the old way, with getChildren
+	private static void preOrder(ASTNode node, List<ASTNode> nodes) {
+		nodes.add(node);
+		if (node instanceof Declaration)
+			return;
+		List<ASTNode> children = node.getChildren();
+		assertEquals(children.size(), node.childCount());
+		for (ASTNode child : children) {
+			preOrder(child, nodes);
+		}
+	}
+}
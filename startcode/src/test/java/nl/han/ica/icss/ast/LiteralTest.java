@@ -0,0 +1,23 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.ast.literals.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiteralTest {
+
+	@Test
+	void testFactoriesShareEqualLiterals() {
+		assertSame(PixelLiteral.parse("10px"), PixelLiteral.valueOf(10));
+		assertSame(PercentageLiteral.parse("50%"), PercentageLiteral.valueOf(50));
+		assertSame(ScalarLiteral.parse("-3"), ScalarLiteral.valueOf(-3));
+		assertSame(BoolLiteral.TRUE, BoolLiteral.parse("TRUE"));
+		assertSame(ColorLiteral.parse("#ff0000"), ColorLiteral.valueOf(0xff0000));
+		assertEquals("#00a0ff", ColorLiteral.parse("#00a0ff").getHex());
+
+		//Outside the cache the values are still equal
+		assertEquals(PixelLiteral.valueOf(100000), PixelLiteral.parse("100000px"));
+		assertNotEquals(PixelLiteral.valueOf(10), ScalarLiteral.valueOf(10));
+		assertEquals(new PixelLiteral("20px"), PixelLiteral.valueOf(20));
+	}
+}
@@ -0,0 +1,25 @@
+package nl.han.ica.icss.ast;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourcePositionsTest {
+
+	@Test
+	void testEveryTableKeepsItsOwnPositions() {
+		Declaration shared = new Declaration("width");
+		SourcePositions first = new SourcePositions();
+		SourcePositions second = new SourcePositions();
+		for (int i = 0; i < 100; i++) {
+			first.add(new Declaration("color"), i + 1, 1, 10 * i, 5);
+		}
+		first.add(shared, 200, 3, 1000, 4);
+		second.add(shared, 2, 5, 20, 6);
+
+		assertEquals(200, first.getLine(shared));
+		assertEquals(1000, first.getStart(shared));
+		assertEquals(2, second.getLine(shared));
+		assertEquals(6, second.getLength(shared));
+		assertFalse(second.contains(new Declaration("width")));
+	}
+}
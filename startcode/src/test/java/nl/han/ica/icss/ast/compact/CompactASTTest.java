@@ -0,0 +1,69 @@
+package nl.han.ica.icss.ast.compact;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.ICSSCompiler;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.Fixtures;
+import nl.han.ica.icss.synthetic.StylesheetGenerator;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactASTTest {
+
+	@Test
+	void testRoundTripKeepsTheTree() {
+		for (AST ast : new AST[]{Fixtures.uncheckedLevel0(), Fixtures.uncheckedLevel1(),
+				Fixtures.uncheckedLevel2(), Fixtures.uncheckedLevel3()}) {
+			AST decoded = CompactAST.from(ast).toAST();
+			assertEquals(ast, decoded);
+			//equals does not tell operations apart, their labels do
+			assertEquals(ast.toString(), decoded.toString());
+		}
+	}
+
+	@Test
+	void testCursorWalksThePreOrder() {
+		AST ast = new ICSSCompiler().parse("Color := #ff0000;\n.menu { width: 10px + 2; }\n").getAST();
+		CompactAST compact = CompactAST.from(ast);
+		CompactAST.Cursor cursor = compact.cursor();
+		assertEquals(NodeKind.STYLESHEET, cursor.kind());
+
+		assertTrue(cursor.firstChild());
+		assertEquals(NodeKind.VARIABLE_ASSIGNMENT, cursor.kind());
+		assertEquals("Color", cursor.name());
+		assertTrue(cursor.firstChild());
+		assertEquals(0xff0000, cursor.value());
+		assertFalse(cursor.nextSibling());
+		assertTrue(cursor.parent());
+
+		assertTrue(cursor.nextSibling());
+		assertEquals(NodeKind.STYLERULE, cursor.kind());
+		assertTrue(cursor.firstChild());
+		assertEquals(NodeKind.CLASS_SELECTOR, cursor.kind());
+		assertEquals(".menu", cursor.name());
+		assertTrue(cursor.nextSibling());
+		assertEquals("width", cursor.name());
+		assertTrue(cursor.firstChild());
+		assertEquals(NodeKind.ADD_OPERATION, cursor.kind());
+		assertFalse(cursor.nextSibling());
+		assertTrue(cursor.parent());
+		assertFalse(cursor.nextSibling());
+		assertTrue(cursor.parent());
+
+		assertFalse(cursor.nextSibling());
+		assertTrue(cursor.parent());
+		assertFalse(cursor.parent());
+		assertEquals(9, compact.size());
+	}
+
+	@Test
+	void testGeneratesTheSameCss() {
+		StylesheetGenerator.Settings settings = StylesheetGenerator.Settings.forDeclarations(500);
+		settings.localVariablesPerRule = 2;
+		CompilationResult result = new ICSSCompiler().compile(new StylesheetGenerator(settings).generate());
+		assertTrue(result.isTransformed(), result.getErrors().toString());
+
+		assertEquals(result.getCss(), new Generator().generate(CompactAST.from(result.getAST())));
+	}
+}
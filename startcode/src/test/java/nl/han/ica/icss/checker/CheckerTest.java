@@ -0,0 +1,114 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.ICSSCompiler;
+import nl.han.ica.icss.ast.AST;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+class CheckerTest {
+
+	private static final String BROKEN = "Color := #ff0000 + 2px;\n"
+			+ "p { width: #ffffff * (2px + 10%); if[2px - TRUE] { color: 3px; } }\n"
+			+ "a { font-size: 10px; height: Undefined; }\n";
+
+	private final ICSSCompiler compiler = new ICSSCompiler();
+
+	@Test
+	void testErrorsAreInTheOrderOfTheNodes() {
+		AST ast = compiler.parse(BROKEN).getAST();
+		Diagnostics diagnostics = new Checker().check(ast);
+
+		//The errors the nodes are marked with, in pre-order
+		assertEquals(ast.getErrors().toString(), diagnostics.getEntries().toString());
+		assertEquals(10, diagnostics.getErrorCount());
+		for (SemanticError error : diagnostics.getEntries()) {
+			assertSame(error, error.node.getError());
+			assertEquals(Severity.ERROR, error.severity);
+		}
+	}
+
+	@Test
+	void testStopsAtTheErrorLimit() {
+		List<SemanticError> all = new Checker().check(compiler.parse(BROKEN).getAST()).getEntries();
+
+		for (int limit = 1; limit < all.size(); limit++) {
+			AST ast = compiler.parse(BROKEN).getAST();
+			Diagnostics diagnostics = new Checker(limit).check(ast);
+			assertTrue(diagnostics.isFull());
+			assertEquals(all.subList(0, limit).toString(), diagnostics.getEntries().toString());
+			//Errors that did not make the cut are not left on the nodes
+			assertEquals(limit, ast.getErrors().size());
+		}
+	}
+
+	@Test
+	void testErrorsSayWhereTheNodeIs() {
+		String source = "p {\n\twidth: #ffffff;\n\theight: 2px + 10% * 3;\n}\n";
+		for (ICSSCompiler.ASTConstruction construction : ICSSCompiler.ASTConstruction.values()) {
+			ICSSCompiler.Options options = ICSSCompiler.Options.DEFAULT
+					.withASTConstruction(construction).withSourcePositions(true);
+			List<SemanticError> errors = new Checker().check(compiler.parse(source, options).getAST()).getEntries();
+
+			assertEquals(3, errors.size(), construction.toString());
+			assertPosition(2, 2, "width: #ffffff;", errors.get(0));
+			assertPosition(3, 2, "height: 2px + 10% * 3;", errors.get(1));
+			assertPosition(3, 10, "2px + 10% * 3", errors.get(2));
+			assertEquals("ERROR at line 3, column 10: Type mismatch in operatie: PIXEL vs PERCENTAGE", errors.get(2).toString());
+		}
+		//Without positions nothing is recorded
+		SemanticError error = new Checker().check(compiler.parse(source).getAST()).getEntries().get(0);
+		assertFalse(error.hasPosition());
+	}
+
+	private static void assertPosition(int line, int column, String text, SemanticError error) {
+		assertEquals(line, error.line);
+		assertEquals(column, error.column);
+		assertEquals(text.length(), error.length);
+	}
+
+	@Test
+	void testTheErrorLimitIsAtLeastOne() {
+		assertThrows(IllegalArgumentException.class, () -> ICSSCompiler.Options.DEFAULT.withErrorLimit(0));
+		assertThrows(IllegalArgumentException.class, () -> new Diagnostics(0, null));
+		assertThrows(IllegalArgumentException.class, () -> new Checker(-1));
+
+		String source = "A := 1px; B := C; D := E; p { width: A; }";
+		for (boolean parallel : new boolean[]{false, true}) {
+			CompilationResult result = compiler.compile(source, ICSSCompiler.Options.DEFAULT.withErrorLimit(1).withParallelRules(parallel));
+			assertFalse(result.isChecked());
+			assertEquals(1, result.getErrors().size());
+		}
+	}
+
+	@Test
+	void testPropertiesComeFromTheRegistry() throws IOException {
+		String source = "p { font-size: 10px; width: 3px; color: 3px; }";
+		assertEquals(List.of(
+				"ERROR: Property 'font-size' is niet toegestaan in ICSS.",
+				"ERROR: Property 'color' expects a color value."), errors(source, PropertyRegistry.DEFAULT));
+
+		String table = "# test\nfont-size: PIXEL\n\nwidth: PERCENTAGE SCALAR\n";
+		PropertyRegistry registry = PropertyRegistry.load(new ByteArrayInputStream(table.getBytes(StandardCharsets.UTF_8)));
+		assertEquals(List.of(
+				"ERROR: Property 'width' vereist PERCENTAGE of SCALAR, maar kreeg PIXEL",
+				"ERROR: Property 'color' is niet toegestaan in ICSS."), errors(source, registry));
+
+		assertThrows(IllegalArgumentException.class,
+				() -> PropertyRegistry.load(new ByteArrayInputStream("width: PIXELS".getBytes(StandardCharsets.UTF_8))));
+	}
+
+	private List<String> errors(String source, PropertyRegistry registry) {
+		List<String> errors = new ArrayList<>();
+		for (SemanticError error : new Checker(Integer.MAX_VALUE, registry).check(compiler.parse(source).getAST()).getEntries()) {
+			errors.add(error.toString());
+		}
+		return errors;
+	}
+}
@@ -0,0 +1,48 @@
+package nl.han.ica.icss.cli;
+
+import nl.han.ica.icss.ICSSCompiler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class BatchCompilerTest {
+
+	private static final String VALID = "p { width: 10px; }";
+
+	@Test
+	void testCompilesTheTreeBelowTheOutputRoot(@TempDir Path directory) throws IOException {
+		Path sources = Files.createDirectories(directory.resolve("src"));
+		Files.writeString(sources.resolve("a.icss"), VALID);
+		Files.createDirectories(sources.resolve("sub"));
+		Files.writeString(sources.resolve("sub/b.icss"), VALID);
+		Files.writeString(sources.resolve("broken.icss"), "p { width: #ffffff; }");
+		Files.writeString(sources.resolve("notes.txt"), "not compiled");
+		//Passed explicitly, so compiled even though it does not end in .icss
+		Path explicit = Files.writeString(directory.resolve("c.style"), VALID);
+		Path output = directory.resolve("out");
+
+		int failed = new BatchCompiler(output, 2).compileAll(List.of(sources, explicit));
+
+		assertEquals(1, failed);
+		String css = new ICSSCompiler().compile(VALID).getCss();
+		assertEquals(css, Files.readString(output.resolve("a.css")));
+		assertEquals(css, Files.readString(output.resolve("sub/b.css")));
+		assertEquals(css, Files.readString(output.resolve("c.style.css")));
+		assertFalse(Files.exists(output.resolve("broken.css")));
+		assertFalse(Files.exists(output.resolve("notes.css")));
+	}
+
+	@Test
+	void testWritesNextToTheSourceWithoutOutputRoot(@TempDir Path directory) throws IOException {
+		Path source = Files.writeString(directory.resolve("a.css"), VALID);
+
+		assertEquals(0, new BatchCompiler(null, 1).compileAll(List.of(source)));
+		assertTrue(Files.exists(directory.resolve("a.css.css")));
+		assertFalse(Files.exists(directory.resolve(".css")));
+	}
+}
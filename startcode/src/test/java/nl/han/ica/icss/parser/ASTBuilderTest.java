@@ -0,0 +1,81 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.ICSSCompiler;
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import nl.han.ica.icss.ast.literals.PercentageLiteral;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+import nl.han.ica.icss.synthetic.StylesheetGenerator;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+class ASTBuilderTest {
+
+	private final ICSSCompiler compiler = new ICSSCompiler();
+	private final ICSSCompiler.Options parseTree = ICSSCompiler.Options.DEFAULT
+			.withASTConstruction(ICSSCompiler.ASTConstruction.PARSE_TREE);
+	private final ICSSCompiler.Options direct = ICSSCompiler.Options.DEFAULT
+			.withASTConstruction(ICSSCompiler.ASTConstruction.DIRECT);
+
+	AST parseTestFile(String resource, ParseMode mode) throws IOException {
+		try (InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream(resource)) {
+			String source = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+			CompilationResult result = compiler.parse(source, direct.withParseMode(mode));
+			assertTrue(result.isParsed(), result.getErrors().toString());
+			return result.getAST();
+		}
+	}
+
+	@Test
+	void testBuildLevels() throws IOException {
+		for (ParseMode mode : ParseMode.values()) {
+			assertEquals(Fixtures.uncheckedLevel0(), parseTestFile("level0.icss", mode));
+			assertEquals(Fixtures.uncheckedLevel1(), parseTestFile("level1.icss", mode));
+			assertEquals(Fixtures.uncheckedLevel2(), parseTestFile("level2.icss", mode));
+			assertEquals(Fixtures.uncheckedLevel3(), parseTestFile("level3.icss", mode));
+		}
+	}
+
+	@Test
+	void testSameASTAsParseTreeWalk() {
+		for (long seed = 0; seed < 10; seed++) {
+			StylesheetGenerator.Settings settings = StylesheetGenerator.Settings.forDeclarations(500);
+			settings.seed = seed;
+			settings.localVariablesPerRule = 2;
+			settings.operatorChainLength = 6;
+			String input = new StylesheetGenerator(settings).generate();
+
+			assertEquals(compiler.parse(input, parseTree).getAST(), compiler.parse(input, direct).getAST());
+		}
+	}
+
+	@Test
+	void testSameErrorsAsParseTreeWalk() {
+		String[] inputs = {"p { width 10px; }", "p { width: 1px + ; } a { color: #fff; }", "X := 1px; p { if[X { } }"};
+		for (String input : inputs) {
+			assertEquals(compiler.parse(input, parseTree).getErrors(), compiler.parse(input, direct).getErrors(), input);
+		}
+	}
+
+	@Test
+	void testRepeatedNamesAreShared() {
+		String input = "Size := 10px;\na { width: Size; }\na { height: Size; width: 20%; color: #00ff0a; }";
+		for (ICSSCompiler.Options options : new ICSSCompiler.Options[]{parseTree, direct}) {
+			Stylesheet stylesheet = compiler.parse(input, options).getAST().root;
+			Stylerule first = (Stylerule) stylesheet.body.get(1);
+			Stylerule second = (Stylerule) stylesheet.body.get(2);
+
+			assertSame(((TagSelector) first.selectors.get(0)).tag, ((TagSelector) second.selectors.get(0)).tag);
+			assertSame(((Declaration) first.body.get(0)).property.name, ((Declaration) second.body.get(1)).property.name);
+			assertSame(((VariableReference) ((Declaration) first.body.get(0)).expression).name,
+					((VariableAssignment) stylesheet.body.get(0)).name.name);
+			assertEquals(new PercentageLiteral(20), ((Declaration) second.body.get(1)).expression);
+			assertEquals(new ColorLiteral("#00ff0a"), ((Declaration) second.body.get(2)).expression);
+		}
+	}
+}
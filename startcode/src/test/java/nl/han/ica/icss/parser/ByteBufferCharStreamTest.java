@@ -0,0 +1,72 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.ICSSCompiler;
+import nl.han.ica.icss.synthetic.StylesheetGenerator;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class ByteBufferCharStreamTest {
+
+	private final ICSSCompiler compiler = new ICSSCompiler();
+
+	@Test
+	void testSameTokensAsAString() {
+		String input = new StylesheetGenerator(StylesheetGenerator.Settings.forDeclarations(200)).generate()
+				+ "\n@ p { width: 1px; }";
+		List<? extends Token> expected = lexer(new ICSSLexer(CharStreams.fromString(input))).getAllTokens();
+		List<? extends Token> actual = lexer(new ICSSLexer(new ByteBufferCharStream(bytes(input)))).getAllTokens();
+
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getType(), actual.get(i).getType());
+			assertEquals(expected.get(i).getText(), actual.get(i).getText());
+			assertEquals(expected.get(i).getLine(), actual.get(i).getLine());
+			assertEquals(expected.get(i).getCharPositionInLine(), actual.get(i).getCharPositionInLine());
+		}
+	}
+
+	@Test
+	void testParseFileGivesTheSameResult(@TempDir Path directory) throws IOException {
+		for (String level : new String[]{"level0.icss", "level1.icss", "level2.icss", "level3.icss"}) {
+			String input = new String(getClass().getClassLoader().getResourceAsStream(level).readAllBytes(), StandardCharsets.UTF_8);
+			Path file = directory.resolve(level);
+			Files.writeString(file, input);
+
+			CompilationResult expected = compiler.compile(input);
+			CompilationResult actual = compiler.compile(file, ICSSCompiler.Options.DEFAULT);
+
+			assertTrue(actual.isTransformed(), actual.getErrors().toString());
+			assertEquals(expected.getCss(), actual.getCss(), level);
+		}
+	}
+
+	@Test
+	void testOnlyTheRemainingBytesAreParsed() {
+		ByteBuffer buffer = bytes("garbage p { width: 1px; }");
+		buffer.position("garbage ".length());
+
+		CompilationResult result = compiler.parse(buffer, ICSSCompiler.Options.DEFAULT);
+		assertTrue(result.isParsed(), result.getErrors().toString());
+		assertEquals("garbage ".length(), buffer.position());
+	}
+
+	private static ICSSLexer lexer(ICSSLexer lexer) {
+		lexer.removeErrorListeners();
+		return lexer;
+	}
+
+	private static ByteBuffer bytes(String input) {
+		return ByteBuffer.wrap(input.getBytes(StandardCharsets.US_ASCII));
+	}
+}
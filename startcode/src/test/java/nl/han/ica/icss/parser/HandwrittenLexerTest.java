@@ -0,0 +1,114 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.ICSSCompiler;
+import nl.han.ica.icss.synthetic.StylesheetGenerator;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class HandwrittenLexerTest {
+
+	//Every character the grammar uses, plus some it does not
+	private static final String ALPHABET = "0123456789abcdefxpilsz-ABEFLRSTUZ_#.%:=;{}[]+*  \t\r\n@!é";
+
+	@Test
+	void testSameTokensOnTheFixtures() throws IOException {
+		for (String level : new String[]{"level0.icss", "level1.icss", "level2.icss", "level3.icss"}) {
+			String input = new String(getClass().getClassLoader().getResourceAsStream(level).readAllBytes(), StandardCharsets.UTF_8);
+			assertSameTokens(input);
+		}
+		for (long seed = 0; seed < 5; seed++) {
+			StylesheetGenerator.Settings settings = StylesheetGenerator.Settings.forDeclarations(500);
+			settings.seed = seed;
+			assertSameTokens(new StylesheetGenerator(settings).generate());
+		}
+	}
+
+	@Test
+	void testSameTokensAndErrorsOnFuzzedInput() {
+		Random random = new Random(0);
+		for (int i = 0; i < 2000; i++) {
+			StringBuilder input = new StringBuilder();
+			int length = random.nextInt(40);
+			for (int j = 0; j < length; j++) {
+				input.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+			}
+			assertSameTokens(input.toString());
+		}
+		assertSameTokens("if else iffy elsewhere TRUE FALSE TRUEST #abcdef #abcdeg #abcdef0 #ABCDEF . # 10p 10px 10% 10pxx := :");
+		//Outside the basic plane a String has two chars per character
+		assertSameTokens("p { width: 1px; } 😀 a { }");
+	}
+
+	@Test
+	void testParsesLikeTheGeneratedLexer() {
+		String input = new StylesheetGenerator(StylesheetGenerator.Settings.forDeclarations(500)).generate();
+		ICSSCompiler compiler = new ICSSCompiler();
+		CompilationResult expected = compiler.compile(input);
+		CompilationResult actual = compiler.compile(input, ICSSCompiler.Options.DEFAULT.withHandwrittenLexer(true));
+
+		assertTrue(actual.isTransformed(), actual.getErrors().toString());
+		assertEquals(expected.getCss(), actual.getCss());
+
+		String broken = "p { width: 1px; } @ a { color: #ZZZ; }";
+		assertEquals(compiler.parse(broken).getErrors(),
+				compiler.parse(broken, ICSSCompiler.Options.DEFAULT.withHandwrittenLexer(true)).getErrors());
+	}
+
+	private void assertSameTokens(String input) {
+		List<String> expectedErrors = new ArrayList<>();
+		ICSSLexer generated = new ICSSLexer(CharStreams.fromString(input));
+		generated.removeErrorListeners();
+		generated.addErrorListener(collect(expectedErrors));
+		List<String> expected = tokens(generated);
+
+		CharStream[] streams = {
+				CharStreams.fromString(input),
+				new ByteBufferCharStream(ByteBuffer.wrap(input.getBytes(StandardCharsets.ISO_8859_1)))
+		};
+		//Only Latin-1 text reads the same from bytes
+		int streamCount = StandardCharsets.ISO_8859_1.newEncoder().canEncode(input) ? 2 : 1;
+		for (int i = 0; i < streamCount; i++) {
+			List<String> actualErrors = new ArrayList<>();
+			HandwrittenLexer handwritten = new HandwrittenLexer(streams[i]);
+			handwritten.setErrorListener(collect(actualErrors));
+
+			assertEquals(expected, tokens(handwritten), input);
+			assertEquals(expectedErrors, actualErrors, input);
+		}
+	}
+
+	private static List<String> tokens(TokenSource lexer) {
+		List<String> tokens = new ArrayList<>();
+		Token token;
+		do {
+			token = lexer.nextToken();
+			tokens.add(token.getType() + " '" + token.getText() + "' " + token.getLine() + ":" + token.getCharPositionInLine()
+					+ " " + token.getStartIndex() + "-" + token.getStopIndex() + " " + token.getChannel());
+		} while (token.getType() != Token.EOF);
+		return tokens;
+	}
+
+	private static BaseErrorListener collect(List<String> errors) {
+		return new BaseErrorListener() {
+			@Override
+			public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine, String msg, RecognitionException e) {
+				errors.add(line + ":" + charPositionInLine + " " + msg);
+			}
+		};
+	}
+}
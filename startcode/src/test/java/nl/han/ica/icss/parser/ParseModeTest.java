@@ -0,0 +1,55 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.ICSSCompiler;
+import nl.han.ica.icss.synthetic.StylesheetGenerator;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseModeTest {
+
+	private static final String[] BROKEN_INPUTS = {
+			"",
+			"p",
+			"p { width 10px; }",
+			"p { width: 10px }",
+			"p { } }",
+			"p { width: 10px; } Width := 10px;",
+			"X := ; p { }",
+			"p { width: 10px + ; }",
+			"p { if[TRUE] { } }",
+			"p { if[TRUE] { width: 1px; } else { } }",
+			"@ p { width: 1px; }",
+			"#zz { color: #fff; }",
+	};
+
+	private final ICSSCompiler compiler = new ICSSCompiler();
+	private final ICSSCompiler.Options ll = ICSSCompiler.Options.DEFAULT.withParseMode(ParseMode.LL);
+	private final ICSSCompiler.Options twoStage = ICSSCompiler.Options.DEFAULT.withParseMode(ParseMode.SLL_THEN_LL);
+
+	@Test
+	void testBothModesReportTheSameErrors() {
+		for (String input : BROKEN_INPUTS) {
+			CompilationResult expected = compiler.parse(input, ll);
+			CompilationResult actual = compiler.parse(input, twoStage);
+
+			assertEquals(expected.getErrors(), actual.getErrors(), input);
+			assertEquals(expected.isParsed(), actual.isParsed(), input);
+		}
+	}
+
+	@Test
+	void testBothModesBuildTheSameAST() {
+		for (long seed = 0; seed < 10; seed++) {
+			StylesheetGenerator.Settings settings = StylesheetGenerator.Settings.forDeclarations(500);
+			settings.seed = seed;
+			String input = new StylesheetGenerator(settings).generate();
+
+			CompilationResult expected = compiler.parse(input, ll);
+			CompilationResult actual = compiler.parse(input, twoStage);
+
+			assertTrue(actual.isParsed(), actual.getErrors().toString());
+			assertEquals(expected.getAST(), actual.getAST());
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ICSSCompiler;
+import nl.han.ica.icss.synthetic.StylesheetGenerator;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParserFactoryTest {
+
+	@Test
+	void testWarmUpFillsOwnCache() {
+		ParserFactory factory = new ParserFactory();
+		assertEquals(0, factory.getDfaStateCount());
+
+		factory.warmUp();
+		int warm = factory.getDfaStateCount();
+		assertTrue(warm > 0);
+		assertEquals(0, new ParserFactory().getDfaStateCount());
+
+		factory.clear();
+		assertEquals(0, factory.getDfaStateCount());
+	}
+
+	@Test
+	void testCacheIsRebuiltWhenLimitIsExceeded() {
+		ParserFactory reference = new ParserFactory();
+		reference.warmUp();
+		int warm = reference.getDfaStateCount() + reference.getContextCacheSize();
+
+		String input = new StylesheetGenerator(StylesheetGenerator.Settings.forDeclarations(2000)).generate();
+		new ICSSCompiler(reference).parse(input);
+		assertTrue(reference.getDfaStateCount() + reference.getContextCacheSize() > warm + 1);
+
+		ParserFactory factory = new ParserFactory(warm + 1);
+		factory.warmUp();
+		assertFalse(factory.enforceLimit());
+
+		new ICSSCompiler(factory).parse(input);
+		assertTrue(factory.getDfaStateCount() + factory.getContextCacheSize() <= warm);
+	}
+}
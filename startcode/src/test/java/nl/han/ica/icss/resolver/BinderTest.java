@@ -0,0 +1,65 @@
+package nl.han.ica.icss.resolver;
+
+import nl.han.ica.icss.ICSSCompiler;
+import nl.han.ica.icss.ast.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinderTest {
+
+	@Test
+	void testSlotsFollowTheScopes() {
+		AST ast = new ICSSCompiler().parse("A := 1px;\n"
+				+ "p { B := A; if[TRUE] { A := 2px; width: A; } height: A; }\n"
+				+ "a { C := 3px; width: C + Undefined; }\n").getAST();
+
+		assertEquals(3, new Binder().bind(ast));
+		assertEquals(3, ast.variableSlots);
+
+		VariableAssignment globalA = (VariableAssignment) ast.root.body.get(0);
+		Stylerule p = (Stylerule) ast.root.body.get(1);
+		VariableAssignment b = (VariableAssignment) p.body.get(0);
+		IfClause ifClause = (IfClause) p.body.get(1);
+		VariableAssignment localA = (VariableAssignment) ifClause.body.get(0);
+		Declaration insideIf = (Declaration) ifClause.body.get(1);
+		Declaration afterIf = (Declaration) p.body.get(2);
+
+		assertEquals(0, globalA.name.slot);
+		assertEquals(0, ((VariableReference) b.expression).slot);
+		assertEquals(1, b.name.slot);
+		assertEquals(2, localA.name.slot);
+		assertEquals(0, localA.previousSlot);
+		assertEquals(2, ((VariableReference) insideIf.expression).slot);
+		assertEquals(0, ((VariableReference) afterIf.expression).slot);
+
+		//The slots of p are free again for a
+		Stylerule a = (Stylerule) ast.root.body.get(2);
+		VariableAssignment c = (VariableAssignment) a.body.get(0);
+		Operation width = (Operation) ((Declaration) a.body.get(1)).expression;
+		assertEquals(1, c.name.slot);
+		assertEquals(-1, c.previousSlot);
+		assertEquals(1, ((VariableReference) width.lhs).slot);
+		assertEquals(-1, ((VariableReference) width.rhs).slot);
+	}
+
+	@Test
+	void testNamesThatGetASymbolLater() {
+		Binder binder = new Binder();
+		int global = binder.declareGlobal("BinderTestGlobal");
+
+		//Neither name had a symbol when the binder was made
+		VariableReference reference = new VariableReference("BinderTestGlobal");
+		VariableAssignment local = new VariableAssignment();
+		local.addChild(new VariableReference("BinderTestLocal" + Symbols.count()));
+		assertEquals(reference.symbol, Symbols.of("BinderTestGlobal"));
+		assertEquals("BinderTestGlobal", Symbols.name(reference.symbol));
+
+		binder.openScope();
+		assertEquals(global, binder.bindReference(reference));
+		int slot = binder.bindAssignment(local);
+		assertEquals(-1, local.previousSlot);
+		assertEquals(slot, binder.bindReference(new VariableReference(local.name.name)));
+		binder.closeScope();
+		assertEquals(-1, binder.bindReference(new VariableReference(local.name.name)));
+	}
+}
@@ -0,0 +1,52 @@
+package nl.han.ica.icss.resolver;
+
+import nl.han.ica.icss.ICSSCompiler;
+import nl.han.ica.icss.ast.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+class ResolverTest {
+
+	private static final String SOURCE = "LinkColor := #0000ff;\n"
+			+ "Width := 10px;\n"
+			+ "Wide := Width * 2;\n"
+			+ "p { color: LinkColor; }\n"
+			+ "a { width: Wide; Width := 5px; height: Width; }\n"
+			+ "div { if[TRUE] { Width := 1px; width: Width; } height: Width; }\n"
+			+ "span { color: #ffffff; width: Missing; }\n";
+
+	private final AST ast = new ICSSCompiler().parse(SOURCE).getAST();
+	private final DependencyGraph graph = new Resolver().resolve(ast);
+
+	private Stylerule rule(int index) {
+		return (Stylerule) ast.root.body.get(3 + index);
+	}
+
+	@Test
+	void testReferencesUseTheInnermostAssignment() {
+		VariableAssignment globalWidth = graph.getGlobalAssignments("Width").get(0);
+		VariableAssignment localWidth = (VariableAssignment) rule(1).body.get(1);
+		Declaration height = (Declaration) rule(1).body.get(2);
+		IfClause ifClause = (IfClause) rule(2).body.get(0);
+		Declaration insideIf = (Declaration) ifClause.body.get(1);
+		Declaration afterIf = (Declaration) rule(2).body.get(1);
+
+		assertSame(localWidth, graph.getDefinition((VariableReference) height.expression));
+		assertSame(ifClause.body.get(0), graph.getDefinition((VariableReference) insideIf.expression));
+		assertSame(globalWidth, graph.getDefinition((VariableReference) afterIf.expression));
+		assertEquals(2, graph.getReferences(globalWidth).size());
+		assertEquals(List.of(globalWidth), graph.getDependencies((VariableAssignment) ast.root.body.get(2)));
+		assertEquals("Missing", graph.getUndefinedReferences().get(0).name);
+	}
+
+	@Test
+	void testAffectedRules() {
+		assertEquals(List.of(rule(0)), graph.getAffectedRules("LinkColor"));
+		//Through Wide, and directly in the height of div
+		assertEquals(List.of(rule(1), rule(2)), graph.getAffectedRules("Width"));
+		assertTrue(graph.getAffectedRules("Missing").isEmpty());
+		assertTrue(graph.getAffectedRules((VariableAssignment) rule(1).body.get(1)).contains(rule(1)));
+	}
+}
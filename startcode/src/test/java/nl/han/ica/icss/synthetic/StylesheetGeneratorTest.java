@@ -0,0 +1,55 @@
+package nl.han.ica.icss.synthetic;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.ICSSCompiler;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StylesheetGeneratorTest {
+
+	StylesheetGenerator.Settings shape(long seed) {
+		StylesheetGenerator.Settings settings = new StylesheetGenerator.Settings();
+		settings.seed = seed;
+		settings.globalVariables = 15;
+		settings.stylerules = 50;
+		settings.declarationsPerRule = 8;
+		settings.localVariablesPerRule = 2;
+		settings.ifNestingDepth = 3;
+		settings.operatorChainLength = 4;
+		return settings;
+	}
+
+	@Test
+	void testSameSeedGivesSameStylesheet() {
+		String first = new StylesheetGenerator(shape(42)).generate();
+		String second = new StylesheetGenerator(shape(42)).generate();
+		String other = new StylesheetGenerator(shape(43)).generate();
+
+		assertEquals(first, second);
+		assertNotEquals(first, other);
+	}
+
+	@Test
+	void testGeneratedStylesheetsCompile() {
+		ICSSCompiler compiler = new ICSSCompiler();
+		for (long seed = 0; seed < 20; seed++) {
+			CompilationResult result = compiler.compile(new StylesheetGenerator(shape(seed)).generate());
+			assertTrue(result.isTransformed(), "seed " + seed + ": " + result.getErrors());
+			assertNotNull(result.getCss());
+		}
+	}
+
+	@Test
+	void testSemanticErrorsAreReportedByTheChecker() {
+		ICSSCompiler compiler = new ICSSCompiler();
+		for (long seed = 0; seed < 20; seed++) {
+			StylesheetGenerator.Settings settings = shape(seed);
+			settings.semanticErrors = 5;
+			CompilationResult result = compiler.compile(new StylesheetGenerator(settings).generate());
+
+			assertTrue(result.isParsed(), "seed " + seed + ": " + result.getErrors());
+			assertFalse(result.isChecked());
+			assertTrue(result.getErrors().size() >= settings.semanticErrors);
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ICSSCompiler;
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConstantFolderTest {
+
+	@Test
+	void testFoldsConstantsAndSharesEqualOperations() {
+		AST ast = new ICSSCompiler().parse("Width := 1000px * 2;\n"
+				+ "p { width: Width + 5px; if[TRUE] { Width := 1px; height: Width + 5px; } }\n"
+				+ "a { width: Width + 5px; height: 2 * 3px; }\n").getAST();
+
+		new ConstantFolder().apply(ast);
+
+		VariableAssignment global = (VariableAssignment) ast.root.body.get(0);
+		Stylerule p = (Stylerule) ast.root.body.get(1);
+		Stylerule a = (Stylerule) ast.root.body.get(2);
+		Declaration inP = (Declaration) p.body.get(0);
+		Declaration insideIf = (Declaration) ((IfClause) p.body.get(1)).body.get(1);
+		Declaration inA = (Declaration) a.body.get(0);
+
+		assertEquals(new PixelLiteral(2000), global.expression);
+		assertEquals(new PixelLiteral(2005), inP.expression);
+		assertEquals(new PixelLiteral(6), insideIf.expression);
+		//Computed once for both rules, 2005px is outside the literal cache
+		assertSame(inP.expression, inA.expression);
+		assertEquals(new PixelLiteral(6), ((Declaration) a.body.get(1)).expression);
+		assertTrue(ast.variableSlots >= 0);
+	}
+
+	@Test
+	void testSameCssAsWithoutFolding() {
+		String source = "Big := TRUE;\nSize := 4px;\n"
+				+ "p { if[Big] { width: Size * 3 - 2px; } else { width: 1px; } height: 10px - Size; }\n";
+		ICSSCompiler compiler = new ICSSCompiler();
+		assertEquals("p {\n  width: 10px;\n  height: 6px;\n}", compiler.compile(source).getCss());
+	}
+}